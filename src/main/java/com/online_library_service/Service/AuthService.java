@@ -3,8 +3,14 @@ package com.online_library_service.Service;
 import com.online_library_service.dto.*;
 import com.online_library_service.entity.User;
 import com.online_library_service.enums.Role;
+import com.online_library_service.notification.NotificationTemplates;
+import com.online_library_service.notification.NotificationType;
+import com.online_library_service.notification.RenderedNotification;
 import com.online_library_service.repository.UserRepository;
 import com.online_library_service.security.JwtUtil;
+import com.online_library_service.security.LoginThrottle;
+import com.online_library_service.security.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -12,6 +18,7 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Service
@@ -24,6 +31,9 @@ public class AuthService {
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
     private final NotificationService notificationService;
+    private final NotificationTemplates notificationTemplates;
+    private final TokenRevocationList revocationList;
+    private final LoginThrottle loginThrottle;
 
     public AuthenticationResponse register(RegisterRequest request) {
         log.debug("Registering user with email: {}", request.getEmail());
@@ -44,41 +54,43 @@ public class AuthService {
         User savedUser = userRepository.save(user);
 
         try {
-            String subject = "Welcome to Online Library";
-            String body = String.format(
-                    "Hi %s,\n\nWelcome to the library! Your membership is valid until %s.\n\nEnjoy reading!\n\nRegards,\nLibrary Team",
-                    savedUser.getName(),
-                    savedUser.getMembershipEndDate()
-            );
-            notificationService.sendEmail(savedUser.getEmail(), subject, body);
-            log.info("Welcome email sent to {}", savedUser.getEmail());
+            RenderedNotification welcome = notificationTemplates.render(NotificationType.WELCOME,
+                    savedUser.getName(), savedUser.getMembershipEndDate());
+            notificationService.sendEmail(savedUser.getEmail(), welcome.subject(), welcome.body());
+            log.info("Welcome email queued for {}", savedUser.getEmail());
         } catch (Exception ex) {
             log.error("Failed to send welcome email to {}", savedUser.getEmail(), ex);
         }
 
-        String jwtToken = jwtUtil.generateToken(savedUser.getEmail(), savedUser.getRole().name());
+        String jwtToken = jwtUtil.generateToken(savedUser.getEmail(), savedUser.getRole().name(), savedUser.getId(),
+                revocationList.issueTime(savedUser.getEmail()));
         return new AuthenticationResponse(jwtToken);
     }
 
-    public AuthenticationResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+    public AuthenticationResponse login(LoginRequest request, String clientIp) {
+        return loginThrottle.execute(request.getEmail(), clientIp, () -> {
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
 
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            User user = userRepository.findByEmail(request.getEmail())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
 
-        String jwtToken = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
-        return new AuthenticationResponse(jwtToken);
+            String jwtToken = jwtUtil.generateToken(user.getEmail(), user.getRole().name(), user.getId(),
+                    revocationList.issueTime(user.getEmail()));
+            return new AuthenticationResponse(jwtToken);
+        });
     }
 
     public AuthenticationResponse refreshToken(RefreshTokenRequest request) {
-        if (!jwtUtil.validateToken(request.getRefreshToken())) {
+        Claims claims = jwtUtil.parseValidClaims(request.getRefreshToken());
+        if (claims == null || revocationList.isRevoked(claims)) {
             throw new RuntimeException("Invalid refresh token");
         }
-        String email = jwtUtil.extractUsername(request.getRefreshToken());
+        String email = claims.getSubject();
         User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
 
-        String newToken = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
+        String newToken = jwtUtil.generateToken(user.getEmail(), user.getRole().name(), user.getId(),
+                revocationList.issueTime(user.getEmail()));
         return new AuthenticationResponse(newToken);
     }
 
@@ -93,11 +105,16 @@ public class AuthService {
     }
 
     public String resetPassword(ResetPasswordRequest request) {
-        String email = jwtUtil.extractUsername(request.getToken());
+        Claims claims = jwtUtil.parseValidClaims(request.getToken());
+        if (claims == null || revocationList.isRevoked(claims)) {
+            throw new RuntimeException("Invalid or expired reset token");
+        }
+        String email = claims.getSubject();
         User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found"));
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        revocationList.revokeAllBefore(user.getEmail(), Instant.now());
         return "Password reset successfully";
     }
 
@@ -111,11 +128,16 @@ public class AuthService {
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        revocationList.revokeAllBefore(user.getEmail(), Instant.now());
         return "Password changed successfully";
     }
 
     public String logout(String token) {
-        log.info("User logged out with token: {}", token);
+        Claims claims = jwtUtil.parseValidClaims(token.replace("Bearer ", ""));
+        if (claims != null) {
+            revocationList.revokeToken(claims);
+            log.info("User {} logged out", claims.getSubject());
+        }
         return "Logged out successfully";
     }
 
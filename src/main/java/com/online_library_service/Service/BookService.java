@@ -1,12 +1,17 @@
 package com.online_library_service.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.online_library_service.cache.CatalogListCache;
 import com.online_library_service.dto.BookDto;
+import com.online_library_service.dto.CursorPage;
 import com.online_library_service.entity.Book;
 import com.online_library_service.enums.BookStatus;
 import com.online_library_service.kafka.BookEventProducer;
 import com.online_library_service.repository.BookRepository;
 import com.online_library_service.repository.UserRepository;
+import com.online_library_service.search.TitleSearchIndex;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,12 +19,21 @@ import org.modelmapper.ModelMapper;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -29,26 +43,97 @@ public class BookService {
 	private final BookRepository bookRepository;
 	private final ModelMapper modelMapper;
 	private final BookEventProducer bookEventProducer;
+	private final ObjectMapper objectMapper;
+	private final EntityManager entityManager;
+	private final TitleSearchIndex titleSearchIndex;
+	private final CatalogListCache catalogListCache;
+
+	private static final int MAX_PAGE_SIZE = 100;
+	private static final int MAX_TITLE_MATCHES = 1000;
+	private static final int STREAM_FLUSH_INTERVAL = 500;
 
 	@CachePut(value = "books", key = "#result.id")
+	@Transactional
 	public BookDto addBook(BookDto bookDto) {
 		log.debug("Adding new book: {}", bookDto.getTitle());
 		Book book = modelMapper.map(bookDto, Book.class);
 		book.setStatus(BookStatus.AVAILABLE);
 		book.setActive(true);
 
-		Book savedBook = bookRepository.save(book);
+		Book savedBook = bookRepository.saveAndFlush(book);
+		Long bookId = savedBook.getId();
+		String title = savedBook.getTitle();
+		String category = savedBook.getCategory();
+		String author = savedBook.getAuthor();
+		BookStatus status = savedBook.getStatus();
+		afterCommit(() -> {
+			titleSearchIndex.index(bookId, title);
+			catalogListCache.invalidate(category, author, status);
+		});
 
 		bookEventProducer.publishBookAddedEvent(savedBook);
 
 		return modelMapper.map(savedBook, BookDto.class);
 	}
 
-	@Cacheable(value = "books", key = "#category + #author + #name + #status")
 	public List<BookDto> getAllBooks(String category, String author, String name, BookStatus status) {
 		log.debug("Fetching books with filters");
 
-		Specification<Book> spec = (root, query, cb) -> {
+		return catalogListCache.get(category, author, name, status, () -> {
+			List<Book> books = bookRepository.findAll(buildFilterSpec(category, author, name, status));
+			return books.stream().map(b -> modelMapper.map(b, BookDto.class)).collect(Collectors.toList());
+		});
+	}
+
+	public CursorPage<BookDto> getBooksPage(String category, String author, String name, BookStatus status, Long cursor,
+			int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		log.debug("Fetching books page after cursor {} with size {}", cursor, pageSize);
+
+		Specification<Book> spec = buildFilterSpec(category, author, name, status);
+		if (cursor != null) {
+			spec = spec.and((root, query, cb) -> cb.greaterThan(root.get("id"), cursor));
+		}
+
+		List<Book> books = bookRepository.findBy(spec, q -> q.sortBy(Sort.by("id")).limit(pageSize + 1).all());
+		boolean hasNext = books.size() > pageSize;
+		if (hasNext) {
+			books = books.subList(0, pageSize);
+		}
+
+		List<BookDto> items = books.stream().map(b -> modelMapper.map(b, BookDto.class)).collect(Collectors.toList());
+		Long nextCursor = hasNext ? books.get(books.size() - 1).getId() : null;
+		return new CursorPage<>(items, nextCursor, hasNext);
+	}
+
+	@Transactional(readOnly = true)
+	public void streamBooks(String category, String author, String name, BookStatus status, OutputStream out)
+			throws IOException {
+		log.debug("Streaming books with filters");
+		Specification<Book> spec = buildFilterSpec(category, author, name, status);
+
+		try (Stream<Book> books = bookRepository.findBy(spec, q -> q.sortBy(Sort.by("id")).stream())) {
+			Iterator<Book> it = books.iterator();
+			int written = 0;
+			while (it.hasNext()) {
+				Book book = it.next();
+				out.write(objectMapper.writeValueAsBytes(modelMapper.map(book, BookDto.class)));
+				out.write('\n');
+				entityManager.detach(book);
+
+				if (++written % STREAM_FLUSH_INTERVAL == 0) {
+					out.flush();
+				}
+			}
+			out.flush();
+			log.debug("Streamed {} books", written);
+		}
+	}
+
+	private Specification<Book> buildFilterSpec(String category, String author, String name, BookStatus status) {
+		long[] titleMatches = matchTitles(name);
+
+		return (root, query, cb) -> {
 			List<Predicate> predicates = new ArrayList<>();
 			predicates.add(cb.isTrue(root.get("active")));
 
@@ -58,7 +143,10 @@ public class BookService {
 			if (author != null && !author.isEmpty()) {
 				predicates.add(cb.equal(root.get("author"), author));
 			}
-			if (name != null && !name.isEmpty()) {
+			if (titleMatches != null) {
+				predicates.add(titleMatches.length == 0 ? cb.disjunction()
+						: root.get("id").in(Arrays.stream(titleMatches).boxed().toList()));
+			} else if (name != null && !name.isEmpty()) {
 				predicates.add(cb.like(cb.lower(root.get("title")), "%" + name.toLowerCase() + "%"));
 			}
 			if (status != null) {
@@ -67,9 +155,14 @@ public class BookService {
 
 			return cb.and(predicates.toArray(new Predicate[0]));
 		};
+	}
 
-		List<Book> books = bookRepository.findAll(spec);
-		return books.stream().map(b -> modelMapper.map(b, BookDto.class)).collect(Collectors.toList());
+	private long[] matchTitles(String name) {
+		if (name == null || name.isEmpty() || !titleSearchIndex.isReady()) {
+			return null;
+		}
+		long[] ids = titleSearchIndex.search(name);
+		return ids.length <= MAX_TITLE_MATCHES ? ids : null;
 	}
 
 	@Cacheable(value = "books", key = "#id")
@@ -81,10 +174,14 @@ public class BookService {
 	}
 
 	@CachePut(value = "books", key = "#id")
+	@Transactional
 	public BookDto updateBook(Long id, BookDto bookDto) {
 		log.debug("Updating book id: {}", id);
 		Book book = bookRepository.findByIdAndActiveTrue(id)
 				.orElseThrow(() -> new RuntimeException("Book not found or inactive"));
+		String previousCategory = book.getCategory();
+		String previousAuthor = book.getAuthor();
+		BookStatus previousStatus = book.getStatus();
 
 		if (bookDto.getTitle() != null)
 			book.setTitle(bookDto.getTitle());
@@ -97,32 +194,74 @@ public class BookService {
 		if (bookDto.getImageUrl() != null)
 			book.setImageUrl(bookDto.getImageUrl());
 
-		Book updatedBook = bookRepository.save(book);
+		// Flush before the outbox insert so the row lock, and with it the transaction id the
+		// relay orders by, is taken in the same order as concurrent writers to this book.
+		Book updatedBook = bookRepository.saveAndFlush(book);
+		String title = updatedBook.getTitle();
+		String category = updatedBook.getCategory();
+		String author = updatedBook.getAuthor();
+		BookStatus status = updatedBook.getStatus();
+		afterCommit(() -> {
+			titleSearchIndex.index(id, title);
+			catalogListCache.invalidate(previousCategory, previousAuthor, previousStatus);
+			catalogListCache.invalidate(category, author, status);
+		});
 
 		bookEventProducer.publishBookUpdatedEvent(updatedBook);
 
 		return modelMapper.map(updatedBook, BookDto.class);
 	}
 
-	@CachePut(value = "books", key = "#id")
+	@CacheEvict(value = "books", key = "#id")
+	@Transactional
 	public void updateBookStatus(Long id, BookStatus status) {
 		log.debug("Updating book status id: {}", id);
 		Book book = bookRepository.findByIdAndActiveTrue(id)
 				.orElseThrow(() -> new RuntimeException("Book not found or inactive"));
+		BookStatus previousStatus = book.getStatus();
 		book.setStatus(status);
-		bookRepository.save(book);
+		bookRepository.saveAndFlush(book);
+		String category = book.getCategory();
+		String author = book.getAuthor();
+		afterCommit(() -> {
+			catalogListCache.invalidate(category, author, previousStatus);
+			catalogListCache.invalidate(category, author, status);
+		});
 
 		bookEventProducer.publishBookStatusChangedEvent(book, status);
 	}
 
 	@CacheEvict(value = "books", key = "#id")
+	@Transactional
 	public void deleteBook(Long id) {
 		log.debug("Soft deleting book id: {}", id);
 		Book book = bookRepository.findByIdAndActiveTrue(id)
 				.orElseThrow(() -> new RuntimeException("Book not found or already inactive"));
 		book.setActive(false);
-		bookRepository.save(book);
+		bookRepository.saveAndFlush(book);
+		String category = book.getCategory();
+		String author = book.getAuthor();
+		BookStatus status = book.getStatus();
+		afterCommit(() -> {
+			titleSearchIndex.remove(id);
+			catalogListCache.invalidate(category, author, status);
+		});
 
 		bookEventProducer.publishBookDeletedEvent(book);
 	}
+
+	// The index and list cache must not see a change that could still roll back, and an
+	// invalidation before commit lets a concurrent read re-cache the old rows.
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
 }
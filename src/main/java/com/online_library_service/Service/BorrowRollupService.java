@@ -0,0 +1,143 @@
+package com.online_library_service.Service;
+
+import com.online_library_service.dto.PendingRollup;
+import com.online_library_service.enums.RollupDimension;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BorrowRollupService {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter YEAR = DateTimeFormatter.ofPattern("yyyy");
+
+    private static final String UPSERT =
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (dimension, bucket_key) DO UPDATE " +
+            "SET borrow_count = borrow_rollups.borrow_count + EXCLUDED.borrow_count, label = EXCLUDED.label";
+
+    private static final String[] BACKFILL = {
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'TOTAL', 'all', NULL, NULL, COUNT(*) FROM user_book_history HAVING COUNT(*) > 0",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'DAY', to_char(taken_date, 'YYYY-MM-DD'), NULL, taken_date, COUNT(*) " +
+            "FROM user_book_history GROUP BY taken_date",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'MONTH', to_char(taken_date, 'YYYY-MM'), NULL, NULL, COUNT(*) " +
+            "FROM user_book_history GROUP BY to_char(taken_date, 'YYYY-MM')",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'YEAR', to_char(taken_date, 'YYYY'), NULL, NULL, COUNT(*) " +
+            "FROM user_book_history GROUP BY to_char(taken_date, 'YYYY')",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'CATEGORY', b.category, b.category, NULL, COUNT(*) " +
+            "FROM user_book_history h JOIN books b ON b.id = h.book_id GROUP BY b.category",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'CATEGORY_DAY', b.category || '|' || to_char(h.taken_date, 'YYYY-MM-DD'), b.category, h.taken_date, COUNT(*) " +
+            "FROM user_book_history h JOIN books b ON b.id = h.book_id GROUP BY b.category, h.taken_date",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'BOOK', CAST(b.id AS varchar), b.title, NULL, COUNT(*) " +
+            "FROM user_book_history h JOIN books b ON b.id = h.book_id GROUP BY b.id, b.title",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'BOOK_DAY', b.id || '|' || to_char(h.taken_date, 'YYYY-MM-DD'), b.title, h.taken_date, COUNT(*) " +
+            "FROM user_book_history h JOIN books b ON b.id = h.book_id GROUP BY b.id, b.title, h.taken_date",
+
+            "INSERT INTO borrow_rollups (dimension, bucket_key, label, bucket_date, borrow_count) " +
+            "SELECT 'USER', CAST(u.id AS varchar), u.name, NULL, COUNT(*) " +
+            "FROM user_book_history h JOIN users u ON u.id = h.user_id GROUP BY u.id, u.name"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private record Bucket(RollupDimension dimension, String key, String label, LocalDate date) {
+    }
+
+    private static final Comparator<Bucket> LOCK_ORDER = Comparator.comparing(Bucket::dimension)
+            .thenComparing(Bucket::key);
+
+    /**
+     * Adds the given borrows to every rollup in one batched round trip. Runs in the
+     * aggregator's transaction, so the claimed history rows and the rollups commit
+     * together; rows are upserted in a fixed order so concurrent aggregators cannot
+     * deadlock on shared buckets.
+     */
+    public void applyBorrows(List<PendingRollup> borrows) {
+        if (borrows.isEmpty()) {
+            return;
+        }
+        Map<Bucket, Long> deltas = new TreeMap<>(LOCK_ORDER);
+
+        for (PendingRollup borrow : borrows) {
+            LocalDate takenDate = borrow.getTakenDate();
+            String day = takenDate.toString();
+            String bookId = String.valueOf(borrow.getBookId());
+            increment(deltas, new Bucket(RollupDimension.TOTAL, "all", null, null));
+            increment(deltas, new Bucket(RollupDimension.DAY, day, null, takenDate));
+            increment(deltas, new Bucket(RollupDimension.MONTH, takenDate.format(MONTH), null, null));
+            increment(deltas, new Bucket(RollupDimension.YEAR, takenDate.format(YEAR), null, null));
+            increment(deltas, new Bucket(RollupDimension.CATEGORY, borrow.getCategory(), borrow.getCategory(), null));
+            increment(deltas, new Bucket(RollupDimension.CATEGORY_DAY, borrow.getCategory() + "|" + day,
+                    borrow.getCategory(), takenDate));
+            increment(deltas, new Bucket(RollupDimension.BOOK, bookId, borrow.getTitle(), null));
+            increment(deltas, new Bucket(RollupDimension.BOOK_DAY, bookId + "|" + day, borrow.getTitle(), takenDate));
+            increment(deltas, new Bucket(RollupDimension.USER, String.valueOf(borrow.getUserId()),
+                    borrow.getUserName(), null));
+        }
+
+        List<Map.Entry<Bucket, Long>> rows = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT, rows, rows.size(), (ps, row) -> {
+            Bucket bucket = row.getKey();
+            ps.setString(1, bucket.dimension().name());
+            ps.setString(2, bucket.key());
+            ps.setString(3, bucket.label());
+            ps.setDate(4, bucket.date() != null ? Date.valueOf(bucket.date()) : null);
+            ps.setLong(5, row.getValue());
+        });
+    }
+
+    /**
+     * Recomputes every rollup from the full borrow history. Repeatable read gives the
+     * flag reset and the backfill one snapshot: borrows committed later stay pending
+     * for the aggregator instead of being counted twice.
+     */
+    @Transactional(isolation = Isolation.REPEATABLE_READ)
+    public int rebuild() {
+        log.info("Rebuilding borrow rollups from history");
+        long start = System.currentTimeMillis();
+        jdbcTemplate.update("UPDATE user_book_history SET rollup_pending = false WHERE rollup_pending");
+        jdbcTemplate.update("DELETE FROM borrow_rollups");
+
+        int rows = 0;
+        for (String statement : BACKFILL) {
+            rows += jdbcTemplate.update(statement);
+        }
+        log.info("Rebuilt {} borrow rollup rows in {} ms", rows, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private static void increment(Map<Bucket, Long> deltas, Bucket bucket) {
+        deltas.merge(bucket, 1L, Long::sum);
+    }
+}
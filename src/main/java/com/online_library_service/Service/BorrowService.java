@@ -1,20 +1,42 @@
 package com.online_library_service.Service;
 
+import com.online_library_service.cache.CatalogListCache;
+import com.online_library_service.dto.BulkItemResult;
 import com.online_library_service.entity.Book;
 import com.online_library_service.entity.User;
 import com.online_library_service.entity.UserBookHistory;
 import com.online_library_service.enums.BookStatus;
 import com.online_library_service.exception.BadRequestException;
 import com.online_library_service.exception.NotFoundException;
+import com.online_library_service.report.TopBorrowTracker;
 import com.online_library_service.repository.BookRepository;
 import com.online_library_service.repository.UserBookHistoryRepository;
 import com.online_library_service.repository.UserRepository;
+import com.online_library_service.search.SuggestionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -24,46 +46,49 @@ public class BorrowService {
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
     private final UserBookHistoryRepository historyRepository;
+    private final SuggestionIndex suggestionIndex;
+    private final CatalogListCache catalogListCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final TopBorrowTracker topBorrowTracker;
+    private final CacheManager cacheManager;
 
-    @CacheEvict(value = "reports", key = "'topCategories'")
+    @Transactional
     public void borrowBook(Long userId, Long bookId) {
         log.debug("User {} borrowing book {}", userId, bookId);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found with ID: " + userId));
-
-        if (!user.isActive()) {
-            throw new BadRequestException("User account is deactivated");
-        }
+        User user = loadBorrower(userId);
 
-        if (LocalDate.now().isAfter(user.getMembershipEndDate())) {
-            throw new BadRequestException("Membership expired, please renew");
+        // The conditional update is the only place a copy changes hands: exactly one
+        // concurrent caller can move it from AVAILABLE to TAKEN.
+        if (bookRepository.transitionStatus(bookId, BookStatus.AVAILABLE, BookStatus.TAKEN) == 0) {
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new NotFoundException("Book not found with ID: " + bookId));
+            if (!book.isActive()) {
+                throw new BadRequestException("Book is deactivated");
+            }
+            throw new BadRequestException("Book is already taken");
         }
 
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new NotFoundException("Book not found with ID: " + bookId));
 
-        if (!book.isActive()) {
-            throw new BadRequestException("Book is deactivated");
-        }
-
-        if (book.getStatus() != BookStatus.AVAILABLE) {
-            throw new BadRequestException("Book is already taken");
-        }
-
-        book.setStatus(BookStatus.TAKEN);
-        bookRepository.save(book);
-
         UserBookHistory history = new UserBookHistory();
         history.setUser(user);
         history.setBook(book);
         history.setTakenDate(LocalDate.now());
         historyRepository.save(history);
 
+        afterCommit(() -> {
+            suggestionIndex.recordBorrow(bookId);
+            topBorrowTracker.recordBorrow(bookId, userId, history.getTakenDate());
+            invalidateCatalog(book, BookStatus.AVAILABLE);
+            evictBooks(List.of(bookId));
+        });
+
         log.info("Book {} borrowed successfully by User {}", bookId, userId);
     }
 
-    @CacheEvict(value = "reports", key = "'topCategories'")
+    @Transactional
     public void returnBook(Long userId, Long borrowId) {
         log.debug("User {} returning borrow record {}", userId, borrowId);
 
@@ -79,12 +104,162 @@ public class BorrowService {
             throw new BadRequestException("Book is deactivated");
         }
 
-        book.setStatus(BookStatus.AVAILABLE);
-        bookRepository.save(book);
+        if (historyRepository.markReturned(borrowId, LocalDate.now()) == 0) {
+            throw new BadRequestException("Book has already been returned");
+        }
+        bookRepository.transitionStatus(book.getId(), BookStatus.TAKEN, BookStatus.AVAILABLE);
 
-        history.setReturnedDate(LocalDate.now());
-        historyRepository.save(history);
+        afterCommit(() -> {
+            book.setStatus(BookStatus.AVAILABLE);
+            invalidateCatalog(book, BookStatus.TAKEN);
+            evictBooks(List.of(book.getId()));
+        });
 
         log.info("Book {} returned successfully by User {}", book.getId(), userId);
     }
+
+    @Transactional
+    public List<BulkItemResult> borrowBooks(Long userId, List<Long> bookIds) {
+        log.debug("User {} borrowing {} books", userId, bookIds.size());
+
+        User user = loadBorrower(userId);
+        Set<Long> requested = new LinkedHashSet<>(bookIds);
+
+        Set<Long> claimed = new HashSet<>(bookRepository.claimAvailable(requested));
+        Map<Long, Book> books = bookRepository.findAllById(requested).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        LocalDate today = LocalDate.now();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> claimedIds = requested.stream().filter(claimed::contains).toList();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_book_history (user_id, book_id, taken_date, created_at, rollup_pending) " +
+                "VALUES (?, ?, ?, ?, true)",
+                claimedIds, claimedIds.size(), (ps, bookId) -> {
+                    ps.setLong(1, user.getId());
+                    ps.setLong(2, bookId);
+                    ps.setObject(3, today);
+                    ps.setTimestamp(4, now);
+                });
+
+        List<BulkItemResult> results = new ArrayList<>(requested.size());
+        for (Long bookId : requested) {
+            Book book = books.get(bookId);
+            if (claimed.contains(bookId)) {
+                results.add(BulkItemResult.ok(bookId, "Book borrowed successfully"));
+            } else if (book == null) {
+                results.add(BulkItemResult.failed(bookId, "Book not found with ID: " + bookId));
+            } else if (!book.isActive()) {
+                results.add(BulkItemResult.failed(bookId, "Book is deactivated"));
+            } else {
+                results.add(BulkItemResult.failed(bookId, "Book is already taken"));
+            }
+        }
+
+        afterCommit(() -> {
+            claimedIds.forEach(bookId -> {
+                Book book = books.get(bookId);
+                suggestionIndex.recordBorrow(bookId);
+                topBorrowTracker.recordBorrow(bookId, userId, today);
+                invalidateCatalog(book, BookStatus.AVAILABLE);
+            });
+            evictBooks(claimedIds);
+        });
+
+        log.info("User {} borrowed {} of {} requested books", userId, claimedIds.size(), requested.size());
+        return results;
+    }
+
+    @Transactional
+    public List<BulkItemResult> returnBooks(Long userId, List<Long> borrowIds) {
+        log.debug("User {} returning {} borrow records", userId, borrowIds.size());
+
+        Set<Long> requested = new LinkedHashSet<>(borrowIds);
+        Map<Long, Long> returnedBooks = new HashMap<>();
+        for (Object[] r : historyRepository.markReturnedForUser(requested, userId, LocalDate.now())) {
+            returnedBooks.put(((Number) r[0]).longValue(), ((Number) r[1]).longValue());
+        }
+
+        List<Book> books = List.of();
+        if (!returnedBooks.isEmpty()) {
+            bookRepository.transitionStatuses(returnedBooks.values(), BookStatus.TAKEN, BookStatus.AVAILABLE);
+            books = bookRepository.findAllById(returnedBooks.values());
+        }
+
+        Map<Long, UserBookHistory> failed = new HashMap<>();
+        if (returnedBooks.size() < requested.size()) {
+            historyRepository.findAllById(requested.stream().filter(id -> !returnedBooks.containsKey(id)).toList())
+                    .forEach(h -> failed.put(h.getId(), h));
+        }
+
+        List<BulkItemResult> results = new ArrayList<>(requested.size());
+        for (Long borrowId : requested) {
+            UserBookHistory history = failed.get(borrowId);
+            if (returnedBooks.containsKey(borrowId)) {
+                results.add(BulkItemResult.ok(borrowId, "Book returned successfully"));
+            } else if (history == null) {
+                results.add(BulkItemResult.failed(borrowId, "Borrow record not found with ID: " + borrowId));
+            } else if (!history.getUser().getId().equals(userId)) {
+                results.add(BulkItemResult.failed(borrowId, "This borrow record does not belong to the user"));
+            } else if (!history.getBook().isActive()) {
+                results.add(BulkItemResult.failed(borrowId, "Book is deactivated"));
+            } else {
+                results.add(BulkItemResult.failed(borrowId, "Book has already been returned"));
+            }
+        }
+
+        List<Book> returned = books;
+        afterCommit(() -> {
+            returned.forEach(book -> invalidateCatalog(book, BookStatus.TAKEN));
+            evictBooks(returnedBooks.values());
+        });
+
+        log.info("User {} returned {} of {} requested borrow records", userId, returnedBooks.size(), requested.size());
+        return results;
+    }
+
+    private User loadBorrower(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new NotFoundException("User not found with ID: " + userId));
+
+        if (!user.isActive()) {
+            throw new BadRequestException("User account is deactivated");
+        }
+
+        if (LocalDate.now().isAfter(user.getMembershipEndDate())) {
+            throw new BadRequestException("Membership expired, please renew");
+        }
+        return user;
+    }
+
+    private void invalidateCatalog(Book book, BookStatus previousStatus) {
+        catalogListCache.invalidate(book.getCategory(), book.getAuthor(), previousStatus);
+        catalogListCache.invalidate(book.getCategory(), book.getAuthor(), book.getStatus());
+    }
+
+    // Runs after commit so a concurrent read cannot re-cache the pre-commit status.
+    private void evictBooks(Collection<Long> bookIds) {
+        Cache cache = cacheManager.getCache("books");
+        if (cache == null) {
+            return;
+        }
+        try {
+            bookIds.forEach(cache::evict);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to evict books {}: {}", bookIds, ex.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,122 @@
+package com.online_library_service.Service;
+
+import com.online_library_service.dto.UserContact;
+import com.online_library_service.kafka.WebSocketDeliveryBus;
+import com.online_library_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers one notification to every active user. The WebSocket frame is published
+ * once to the delivery bus, and every instance broadcasts it to its own live sessions
+ * that follow the book's category or author, without touching the database. Email
+ * still goes to everyone: the caller's thread keyset-scans (id, email) pairs and hands
+ * outbox writes to the bounded {@code fanoutExecutor}; a full queue pushes work back
+ * onto the caller, so the scan never runs ahead of delivery.
+ */
+@Service
+@Slf4j
+public class NotificationFanoutService {
+
+    private static final int PAGE_SIZE = 1000;
+    private static final int PROGRESS_EVERY_PAGES = 100;
+
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final WebSocketDeliveryBus webSocketDeliveryBus;
+    private final ThreadPoolTaskExecutor fanoutExecutor;
+    private final MeterRegistry meterRegistry;
+
+    public NotificationFanoutService(UserRepository userRepository, NotificationService notificationService,
+            WebSocketDeliveryBus webSocketDeliveryBus,
+            @Qualifier("fanoutExecutor") ThreadPoolTaskExecutor fanoutExecutor, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.notificationService = notificationService;
+        this.webSocketDeliveryBus = webSocketDeliveryBus;
+        this.fanoutExecutor = fanoutExecutor;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("notifications.fanout.queue", fanoutExecutor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("Fan-out tasks waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Broadcasts the pre-serialized {@code wsJson} frame to subscribed WebSocket
+     * sessions cluster-wide and queues {@code subject}/{@code body} as email to every
+     * active user, returning once every page has been handed off.
+     */
+    public void fanOut(String eventType, String category, String author, String subject, String body,
+            String wsJson) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Counter emailsQueued = counter(eventType, "email", "queued");
+        Counter emailsFailed = counter(eventType, "email", "failed");
+        AtomicLong queued = new AtomicLong();
+
+        webSocketDeliveryBus.broadcast(category, author, wsJson);
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        long start = System.nanoTime();
+        long afterId = 0;
+        long recipients = 0;
+        int pages = 0;
+
+        List<UserContact> page;
+        do {
+            page = userRepository.findActiveContactsAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            if (page.isEmpty()) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            recipients += page.size();
+            pages++;
+
+            String[] emails = page.stream().map(UserContact::getEmail).toArray(String[]::new);
+            pending.add(CompletableFuture.runAsync(() -> {
+                try {
+                    notificationService.sendBulkEmail(emails, subject, body);
+                    emailsQueued.increment(emails.length);
+                    queued.addAndGet(emails.length);
+                } catch (RuntimeException ex) {
+                    emailsFailed.increment(emails.length);
+                    log.error("Failed to queue {} fan-out emails: {}", emails.length, ex.getMessage());
+                }
+            }, fanoutExecutor));
+
+            if (pages % PROGRESS_EVERY_PAGES == 0) {
+                log.info("{} fan-out: {} users scanned, {} emails queued, {}/s", eventType, recipients,
+                        queued.get(), rate(recipients, start));
+                pending.removeIf(CompletableFuture::isDone);
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        sample.stop(Timer.builder("notifications.fanout.duration").tag("event", eventType).register(meterRegistry));
+        log.info("✅ {} fan-out finished: {} users, {} emails queued, {} ms ({}/s)", eventType, recipients,
+                queued.get(), (System.nanoTime() - start) / 1_000_000, rate(recipients, start));
+    }
+
+    private Counter counter(String eventType, String channel, String result) {
+        return Counter.builder("notifications.fanout.recipients")
+                .tag("event", eventType)
+                .tag("channel", channel)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static long rate(long recipients, long startNanos) {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        return recipients * 1000 / elapsedMillis;
+    }
+}
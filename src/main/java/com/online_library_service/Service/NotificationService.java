@@ -1,88 +1,109 @@
 package com.online_library_service.Service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.TimeUnit;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
-    private final JavaMailSender mailSender;
-    private final int maxRetries = 3;
-    private final long retryDelay = 2000L;
-    private final int batchSize = 100; 
-
-    
-    @Async("taskExecutor")
-    public void sendEmail(String to, String subject, String text) {
-        log.debug("Preparing to send email to {}", to);
+    private static final String ENQUEUE =
+            "INSERT INTO email_outbox (recipients, subject, body, status, attempts, next_attempt_at, created_at) " +
+            "VALUES (?, ?, ?, 'PENDING', 0, ?, ?)";
 
-        int attempt = 0;
-        while (attempt < maxRetries) {
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setTo(to);
-                message.setSubject(subject);
-                message.setText(text);
+    private final JavaMailSender mailSender;
+    private final JdbcTemplate jdbcTemplate;
+    private final Semaphore smtpPermits;
+    private final int batchSize = 100;
 
-                mailSender.send(message);
-                log.info("✅ Email sent to {} successfully on attempt {}", to, attempt + 1);
-                break;
-            } catch (MailException ex) {
-                attempt++;
-                log.warn("⚠️ Failed to send email to {} on attempt {}: {}", to, attempt, ex.getMessage());
-                if (attempt >= maxRetries) {
-                    log.error("❌ Could not send email to {} after {} attempts", to, maxRetries, ex);
-                    break;
-                }
-                try {
-                    TimeUnit.MILLISECONDS.sleep(retryDelay);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.error("Email retry interrupted for {}", to, e);
-                    break;
-                }
-            }
-        }
+    public NotificationService(JavaMailSender mailSender, JdbcTemplate jdbcTemplate,
+            @Value("${notifications.smtp.max-concurrent:20}") int maxConcurrentSmtp) {
+        this.mailSender = mailSender;
+        this.jdbcTemplate = jdbcTemplate;
+        this.smtpPermits = new Semaphore(maxConcurrentSmtp, true);
     }
 
+    /** Queues one email in the outbox; it commits with the caller's transaction, if any. */
+    public void sendEmail(String to, String subject, String text) {
+        log.debug("Queueing email to {}", to);
+        enqueue(Collections.singletonList(new String[] { to }), subject, text);
+    }
 
-    @Async("taskExecutor")
+    /** Queues one outbox row per {@code batchSize} recipients. */
     public void sendBulkEmail(String[] recipients, String subject, String text) {
         if (recipients == null || recipients.length == 0) {
             log.warn("No recipients provided for bulk email");
             return;
         }
 
+        List<String[]> batches = new ArrayList<>();
         for (int i = 0; i < recipients.length; i += batchSize) {
-            String[] batch = Arrays.copyOfRange(recipients, i, Math.min(i + batchSize, recipients.length));
-            try {
-                SimpleMailMessage message = new SimpleMailMessage();
-                message.setTo(batch);
-                message.setSubject(subject);
-                message.setText(text);
+            batches.add(Arrays.copyOfRange(recipients, i, Math.min(i + batchSize, recipients.length)));
+        }
+        enqueue(batches, subject, text);
+        log.debug("Queued bulk email for {} recipients in {} batches", recipients.length, batches.size());
+    }
 
-                mailSender.send(message);
-                log.info("✅ Bulk email sent to {} users in batch {}/{}", 
-                        batch.length, 
-                        (i / batchSize) + 1, 
-                        (int) Math.ceil((double) recipients.length / batchSize));
-            } catch (MailException ex) {
-                log.error("❌ Failed to send bulk email to batch {}/{} (size: {}): {}", 
-                        (i / batchSize) + 1, 
-                        (int) Math.ceil((double) recipients.length / batchSize), 
-                        batch.length, 
-                        ex.getMessage());
+    /**
+     * Sends {@code messages} over a single SMTP connection while holding one permit, so
+     * the number of open connections never exceeds {@code notifications.smtp.max-concurrent}.
+     * Returns the messages that failed, mapped to their cause; empty means all were sent.
+     */
+    public Map<SimpleMailMessage, Exception> deliver(SimpleMailMessage[] messages) {
+        Map<SimpleMailMessage, Exception> failures = new IdentityHashMap<>();
+        try {
+            smtpPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (SimpleMailMessage message : messages) {
+                failures.put(message, e);
             }
+            return failures;
         }
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException ex) {
+            if (ex.getFailedMessages().isEmpty()) {
+                for (SimpleMailMessage message : messages) {
+                    failures.put(message, ex);
+                }
+            } else {
+                ex.getFailedMessages().forEach((message, cause) -> failures.put((SimpleMailMessage) message, cause));
+            }
+        } catch (MailException ex) {
+            for (SimpleMailMessage message : messages) {
+                failures.put(message, ex);
+            }
+        } finally {
+            smtpPermits.release();
+        }
+        return failures;
+    }
+
+    private void enqueue(List<String[]> batches, String subject, String text) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(ENQUEUE, batches, batches.size(), (ps, batch) -> {
+            ps.setString(1, String.join(",", batch));
+            ps.setString(2, subject);
+            ps.setString(3, text);
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+        });
     }
-}
\ No newline at end of file
+}
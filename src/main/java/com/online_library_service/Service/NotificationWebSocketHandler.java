@@ -1,42 +1,103 @@
 package com.online_library_service.Service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Accepts {@code /ws/notifications?userId=..} connections, optionally followed by any
+ * number of {@code category=..} and {@code author=..} parameters. Clients can change
+ * what they follow with frames such as
+ * {@code {"action":"subscribe","category":"Fiction"}} or
+ * {@code {"action":"unsubscribe","author":"Tolkien"}}.
+ */
 @Component
 @Slf4j
 public class NotificationWebSocketHandler extends TextWebSocketHandler {
 
-    private final Map<Long, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final ObjectMapper objectMapper;
+    private final Timer broadcastTimer;
+
+    public NotificationWebSocketHandler(WebSocketSessionRegistry sessionRegistry, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.sessionRegistry = sessionRegistry;
+        this.objectMapper = objectMapper;
+        this.broadcastTimer = Timer.builder("websocket.broadcast.duration")
+                .description("Time to queue one broadcast frame on every matching session")
+                .register(meterRegistry);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         Long userId = getUserIdFromSession(session);
         if (userId != null) {
-            sessions.put(userId, session);
-            log.info("User {} connected via WebSocket", userId);
+            session.getAttributes().put(TopicSubscriptions.ATTRIBUTE, initialSubscriptions(session));
+            sessionRegistry.register(userId, session);
+            log.info("User {} connected via WebSocket (session {})", userId, session.getId());
         }
     }
 
     @Override
-    public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) throws Exception {
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         Long userId = getUserIdFromSession(session);
         if (userId != null) {
-            sessions.remove(userId);
-            log.info("User {} disconnected from WebSocket", userId);
+            sessionRegistry.unregister(userId, session);
+            log.info("User {} disconnected from WebSocket (session {}, {})", userId, session.getId(), status);
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        TopicSubscriptions subscriptions = subscriptions(session);
+        if (subscriptions == null) {
+            return;
+        }
+        JsonNode frame;
+        try {
+            frame = objectMapper.readTree(message.getPayload());
+        } catch (Exception e) {
+            log.debug("Ignoring malformed WebSocket frame from session {}", session.getId());
+            return;
+        }
+        boolean subscribe = "subscribe".equals(frame.path("action").asText());
+        if (!subscribe && !"unsubscribe".equals(frame.path("action").asText())) {
+            return;
+        }
+        String category = frame.path("category").asText(null);
+        String author = frame.path("author").asText(null);
+        if (category != null) {
+            if (subscribe) {
+                subscriptions.followCategory(category);
+            } else {
+                subscriptions.unfollowCategory(category);
+            }
+        }
+        if (author != null) {
+            if (subscribe) {
+                subscriptions.followAuthor(author);
+            } else {
+                subscriptions.unfollowAuthor(author);
+            }
         }
     }
 
     private Long getUserIdFromSession(WebSocketSession session) {
         try {
-            String userIdParam = session.getUri().getQuery().split("=")[1];
+            String userIdParam = queryParams(session).getFirst("userId");
             return Long.parseLong(userIdParam);
         } catch (Exception e) {
             log.warn("Failed to extract userId from WebSocket session: {}", e.getMessage());
@@ -44,15 +105,48 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    public void sendNotificationToUser(Long userId, String message) {
-        WebSocketSession session = sessions.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                session.sendMessage(new TextMessage(message));
-                log.info("Sent WebSocket notification to user {}: {}", userId, message);
-            } catch (IOException e) {
-                log.error("Failed to send WebSocket message to user {}: {}", userId, e.getMessage());
+    private static TopicSubscriptions initialSubscriptions(WebSocketSession session) {
+        TopicSubscriptions subscriptions = new TopicSubscriptions();
+        MultiValueMap<String, String> params = queryParams(session);
+        params.getOrDefault("category", List.of()).forEach(subscriptions::followCategory);
+        params.getOrDefault("author", List.of()).forEach(subscriptions::followAuthor);
+        return subscriptions;
+    }
+
+    private static MultiValueMap<String, String> queryParams(WebSocketSession session) {
+        return UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams();
+    }
+
+    private static TopicSubscriptions subscriptions(WebSocketSession session) {
+        return (TopicSubscriptions) session.getAttributes().get(TopicSubscriptions.ATTRIBUTE);
+    }
+
+    /**
+     * Queues {@code message} on every open session of the user without waiting for the
+     * write; returns false when the user has no session or every send was dropped.
+     */
+    public boolean sendNotificationToUser(Long userId, String message) {
+        boolean queued = sessionRegistry.send(userId, new TextMessage(message));
+        log.debug("WebSocket notification for user {} {}", userId, queued ? "queued" : "not delivered");
+        return queued;
+    }
+
+    /**
+     * Queues {@code message} on every connected session that follows {@code category}
+     * or {@code author} (or follows nothing). The payload is encoded once and the same
+     * immutable frame is shared by every session. Returns the number of sessions queued.
+     */
+    public int broadcast(String category, String author, String message) {
+        TextMessage frame = new TextMessage(message.getBytes(StandardCharsets.UTF_8));
+        AtomicInteger queued = new AtomicInteger();
+        broadcastTimer.record(() -> sessionRegistry.forEachSession(session -> {
+            TopicSubscriptions subscriptions = subscriptions(session);
+            if (subscriptions != null && subscriptions.matches(category, author)
+                    && sessionRegistry.enqueue(session, frame)) {
+                queued.incrementAndGet();
             }
-        }
+        }));
+        log.debug("WebSocket broadcast queued on {} sessions", queued.get());
+        return queued.get();
     }
 }
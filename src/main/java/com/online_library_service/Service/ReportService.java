@@ -1,11 +1,21 @@
 package com.online_library_service.Service;
 
+import com.online_library_service.entity.BorrowRollup;
 import com.online_library_service.entity.UserBookHistory;
+import com.online_library_service.enums.RollupDimension;
+import com.online_library_service.exception.BadRequestException;
 import com.online_library_service.exception.NoDataFoundException;
+import com.online_library_service.report.HeavyHitter;
+import com.online_library_service.report.TopBorrowTracker;
+import com.online_library_service.repository.BookRepository;
+import com.online_library_service.repository.BorrowRollupRepository;
 import com.online_library_service.repository.UserBookHistoryRepository;
+import com.online_library_service.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -16,13 +26,20 @@ import java.util.*;
 @Slf4j
 public class ReportService {
 
+	public static final int MAX_TOP_K = 100;
+
 	private final UserBookHistoryRepository historyRepository;
+	private final BorrowRollupRepository rollupRepository;
+	private final BorrowRollupService rollupService;
+	private final TopBorrowTracker topBorrowTracker;
+	private final BookRepository bookRepository;
+	private final UserRepository userRepository;
 
 	@Cacheable(value = "reports", key = "'topCategories'")
 	public Map<String, Double> getTopCategories() {
 		log.info("Fetching report: Top Categories");
-		List<Object[]> rows = historyRepository.findCategoryCounts();
-		long total = historyRepository.findTotalBorrows();
+		List<BorrowRollup> rows = rollupRepository.findByDimensionOrderByBorrowCountDesc(RollupDimension.CATEGORY);
+		long total = totalBorrows();
 
 		if (total == 0 || rows.isEmpty()) {
 			log.warn("No borrow history found for categories");
@@ -30,9 +47,9 @@ public class ReportService {
 		}
 
 		Map<String, Double> percentages = new LinkedHashMap<>();
-		for (Object[] r : rows) {
-			String category = (String) r[0];
-			long count = ((Number) r[1]).longValue();
+		for (BorrowRollup r : rows) {
+			String category = r.getLabel();
+			long count = r.getBorrowCount();
 			double pct = (count * 100.0) / total;
 			percentages.put(category, pct);
 		}
@@ -42,17 +59,17 @@ public class ReportService {
 	@Cacheable(value = "reports", key = "'dailyBorrows'")
 	public List<Map<String, Object>> getDailyBorrows() {
 		log.info("Fetching report: Daily Borrows");
-		List<Object[]> rows = historyRepository.findDailyBorrows();
+		List<BorrowRollup> rows = rollupRepository.findByDimensionOrderByBucketDateDesc(RollupDimension.DAY);
 		if (rows.isEmpty()) {
 			log.warn("No daily borrow data available");
 			throw new NoDataFoundException("No daily borrow data available.");
 		}
 
 		List<Map<String, Object>> out = new ArrayList<>();
-		for (Object[] r : rows) {
+		for (BorrowRollup r : rows) {
 			Map<String, Object> m = new HashMap<>();
-			m.put("date", r[0]);
-			m.put("count", r[1]);
+			m.put("date", r.getBucketDate());
+			m.put("count", r.getBorrowCount());
 			out.add(m);
 		}
 		return out;
@@ -61,18 +78,18 @@ public class ReportService {
 	@Cacheable(value = "reports", key = "'monthlyBorrows'")
 	public List<Map<String, Object>> getMonthlyBorrows() {
 		log.info("Fetching report: Monthly Borrows");
-		List<Object[]> rows = historyRepository.findMonthlyBorrows();
+		List<BorrowRollup> rows = rollupRepository.findByDimensionOrderByBucketKeyDesc(RollupDimension.MONTH);
 		if (rows.isEmpty()) {
 			log.warn("No monthly borrow data available");
 			throw new NoDataFoundException("No monthly borrow data available.");
 		}
 
 		List<Map<String, Object>> out = new ArrayList<>();
-		for (Object[] r : rows) {
+		for (BorrowRollup r : rows) {
 			Map<String, Object> m = new HashMap<>();
-			m.put("year", r[0]);
-			m.put("month", r[1]);
-			m.put("count", r[2]);
+			m.put("year", Integer.valueOf(r.getBucketKey().substring(0, 4)));
+			m.put("month", Integer.valueOf(r.getBucketKey().substring(5)));
+			m.put("count", r.getBorrowCount());
 			out.add(m);
 		}
 		return out;
@@ -81,55 +98,86 @@ public class ReportService {
 	@Cacheable(value = "reports", key = "'yearlyBorrows'")
 	public List<Map<String, Object>> getYearlyBorrows() {
 		log.info("Fetching report: Yearly Borrows");
-		List<Object[]> rows = historyRepository.findYearlyBorrows();
+		List<BorrowRollup> rows = rollupRepository.findByDimensionOrderByBucketKeyDesc(RollupDimension.YEAR);
 		if (rows.isEmpty()) {
 			log.warn("No yearly borrow data available");
 			throw new NoDataFoundException("No yearly borrow data available.");
 		}
 
 		List<Map<String, Object>> out = new ArrayList<>();
-		for (Object[] r : rows) {
+		for (BorrowRollup r : rows) {
 			Map<String, Object> m = new HashMap<>();
-			m.put("year", r[0]);
-			m.put("count", r[1]);
+			m.put("year", Integer.valueOf(r.getBucketKey()));
+			m.put("count", r.getBorrowCount());
 			out.add(m);
 		}
 		return out;
 	}
 
-	@Cacheable(value = "reports", key = "'topBooks'")
-	public List<Map<String, Object>> getTopBorrowedBooks() {
-		log.info("Fetching report: Top Borrowed Books");
-		List<Object[]> rows = historyRepository.findTopBorrowedBooks();
-		if (rows.isEmpty()) {
+	/**
+	 * Top {@code k} books by borrows, over the last {@code days} days or all time when
+	 * days is null. Served from the in-memory heavy-hitter sketch unless {@code exact}
+	 * is set, in which case the counts come from the database.
+	 */
+	public List<Map<String, Object>> getTopBorrowedBooks(int k, Integer days, boolean exact) {
+		log.info("Fetching report: Top Borrowed Books (k={}, days={}, exact={})", k, days, exact);
+		validateTopQuery(k, days);
+
+		List<HeavyHitter> top;
+		Map<Long, String> titles = new HashMap<>();
+		if (exact) {
+			top = exactTop(RollupDimension.BOOK, k, days, titles);
+		} else {
+			top = topBorrowTracker.topBooks(k, days);
+			bookRepository.findAllById(top.stream().map(HeavyHitter::id).toList())
+					.forEach(b -> titles.put(b.getId(), b.getTitle()));
+		}
+		if (top.isEmpty()) {
 			log.warn("No top borrowed books data available");
 			throw new NoDataFoundException("No top borrowed books data available.");
 		}
 
 		List<Map<String, Object>> out = new ArrayList<>();
-		for (Object[] r : rows) {
+		for (HeavyHitter h : top) {
 			Map<String, Object> m = new HashMap<>();
-			m.put("title", r[0]);
-			m.put("count", r[1]);
+			m.put("bookId", h.id());
+			m.put("title", titles.get(h.id()));
+			m.put("count", h.count());
+			m.put("error", h.error());
 			out.add(m);
 		}
 		return out;
 	}
 
-	@Cacheable(value = "reports", key = "'topUsers'")
-	public List<Map<String, Object>> getTopActiveUsers() {
-		log.info("Fetching report: Top Active Users");
-		List<Object[]> rows = historyRepository.findTopActiveUsers();
-		if (rows.isEmpty()) {
+	/**
+	 * Top {@code k} users by borrows, over the last {@code days} days or all time when
+	 * days is null. Served like {@link #getTopBorrowedBooks}.
+	 */
+	public List<Map<String, Object>> getTopActiveUsers(int k, Integer days, boolean exact) {
+		log.info("Fetching report: Top Active Users (k={}, days={}, exact={})", k, days, exact);
+		validateTopQuery(k, days);
+
+		List<HeavyHitter> top;
+		Map<Long, String> names = new HashMap<>();
+		if (exact) {
+			top = exactTop(RollupDimension.USER, k, days, names);
+		} else {
+			top = topBorrowTracker.topUsers(k, days);
+			userRepository.findAllById(top.stream().map(HeavyHitter::id).toList())
+					.forEach(u -> names.put(u.getId(), u.getName()));
+		}
+		if (top.isEmpty()) {
 			log.warn("No top active users data available");
 			throw new NoDataFoundException("No top active users data available.");
 		}
 
 		List<Map<String, Object>> out = new ArrayList<>();
-		for (Object[] r : rows) {
+		for (HeavyHitter h : top) {
 			Map<String, Object> m = new HashMap<>();
-			m.put("user", r[0]);
-			m.put("count", r[1]);
+			m.put("userId", h.id());
+			m.put("user", names.get(h.id()));
+			m.put("count", h.count());
+			m.put("error", h.error());
 			out.add(m);
 		}
 		return out;
@@ -153,7 +201,7 @@ public class ReportService {
 			throw new IllegalArgumentException("Invalid date range provided.");
 		}
 
-		List<Object[]> rows = historyRepository.findCategoryCountsInRange(start, end);
+		List<Object[]> rows = rollupRepository.findCategoryCountsInRange(start, end);
 		if (rows.isEmpty()) {
 			log.warn("No category data available between {} and {}", start, end);
 			throw new NoDataFoundException("No category data available in the given range.");
@@ -181,7 +229,8 @@ public class ReportService {
 
 	public long getUserTotalBorrows(Long userId) {
 		log.info("Fetching report: Total Borrows for user {}", userId);
-		long count = historyRepository.findUserTotalBorrows(userId);
+		long count = rollupRepository.findByDimensionAndBucketKey(RollupDimension.USER, String.valueOf(userId))
+				.map(BorrowRollup::getBorrowCount).orElse(0L);
 		if (count == 0) {
 			log.warn("No borrows found for user {}", userId);
 			throw new NoDataFoundException("No borrows found for this user.");
@@ -191,20 +240,62 @@ public class ReportService {
 
 	public List<Map<String, Object>> getBookBorrowTrends() {
 		log.info("Fetching report: Book Borrow Trends");
-		List<Object[]> rows = historyRepository.findBookBorrowTrends();
+		List<BorrowRollup> rows = rollupRepository.findByDimensionOrderByBucketDateDesc(RollupDimension.BOOK_DAY);
 		if (rows.isEmpty()) {
 			log.warn("No book borrow trends available");
 			throw new NoDataFoundException("No book borrow trends available.");
 		}
 
 		List<Map<String, Object>> out = new ArrayList<>();
-		for (Object[] r : rows) {
+		for (BorrowRollup r : rows) {
 			Map<String, Object> m = new HashMap<>();
-			m.put("book", r[0]);
-			m.put("date", r[1]);
-			m.put("count", r[2]);
+			m.put("book", r.getLabel());
+			m.put("date", r.getBucketDate());
+			m.put("count", r.getBorrowCount());
 			out.add(m);
 		}
 		return out;
 	}
+
+	@CacheEvict(value = "reports", allEntries = true)
+	public int rebuildRollups() {
+		log.info("Rebuilding report rollups");
+		return rollupService.rebuild();
+	}
+
+	private void validateTopQuery(int k, Integer days) {
+		if (k < 1 || k > MAX_TOP_K) {
+			throw new BadRequestException("k must be between 1 and " + MAX_TOP_K);
+		}
+		if (days != null && (days < 1 || days > topBorrowTracker.getWindowDays())) {
+			throw new BadRequestException("days must be between 1 and " + topBorrowTracker.getWindowDays());
+		}
+	}
+
+	private List<HeavyHitter> exactTop(RollupDimension dimension, int k, Integer days, Map<Long, String> labels) {
+		List<HeavyHitter> top = new ArrayList<>();
+		if (days == null) {
+			for (BorrowRollup r : rollupRepository.findByDimensionOrderByBorrowCountDesc(dimension, PageRequest.of(0, k))) {
+				long id = Long.parseLong(r.getBucketKey());
+				labels.put(id, r.getLabel());
+				top.add(new HeavyHitter(id, r.getBorrowCount(), 0));
+			}
+			return top;
+		}
+		LocalDate since = LocalDate.now().minusDays(days - 1L);
+		List<Object[]> rows = dimension == RollupDimension.BOOK
+				? historyRepository.findTopBooksSince(since, PageRequest.of(0, k))
+				: historyRepository.findTopUsersSince(since, PageRequest.of(0, k));
+		for (Object[] r : rows) {
+			long id = (Long) r[0];
+			labels.put(id, (String) r[1]);
+			top.add(new HeavyHitter(id, ((Number) r[2]).longValue(), 0));
+		}
+		return top;
+	}
+
+	private long totalBorrows() {
+		return rollupRepository.findByDimensionAndBucketKey(RollupDimension.TOTAL, "all")
+				.map(BorrowRollup::getBorrowCount).orElse(0L);
+	}
 }
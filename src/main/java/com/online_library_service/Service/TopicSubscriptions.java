@@ -0,0 +1,60 @@
+package com.online_library_service.Service;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Categories and authors a WebSocket session follows, kept in its attributes. A session
+ * that follows nothing receives every broadcast; otherwise an event reaches it when its
+ * category or its author is followed. Matching is case-insensitive.
+ */
+public final class TopicSubscriptions {
+
+    public static final String ATTRIBUTE = TopicSubscriptions.class.getName();
+
+    private volatile Set<String> categories = Set.of();
+    private volatile Set<String> authors = Set.of();
+
+    public boolean matches(String category, String author) {
+        Set<String> followedCategories = categories;
+        Set<String> followedAuthors = authors;
+        if (followedCategories.isEmpty() && followedAuthors.isEmpty()) {
+            return true;
+        }
+        return (category != null && followedCategories.contains(normalize(category)))
+                || (author != null && followedAuthors.contains(normalize(author)));
+    }
+
+    public synchronized void followCategory(String category) {
+        categories = with(categories, category);
+    }
+
+    public synchronized void unfollowCategory(String category) {
+        categories = without(categories, category);
+    }
+
+    public synchronized void followAuthor(String author) {
+        authors = with(authors, author);
+    }
+
+    public synchronized void unfollowAuthor(String author) {
+        authors = without(authors, author);
+    }
+
+    private static Set<String> with(Set<String> current, String value) {
+        Set<String> next = new HashSet<>(current);
+        next.add(normalize(value));
+        return Set.copyOf(next);
+    }
+
+    private static Set<String> without(Set<String> current, String value) {
+        Set<String> next = new HashSet<>(current);
+        next.remove(normalize(value));
+        return Set.copyOf(next);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,5 +1,7 @@
 package com.online_library_service.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.online_library_service.dto.CursorPage;
 import com.online_library_service.dto.MembershipDto;
 import com.online_library_service.dto.UserDto;
 import com.online_library_service.dto.UserExpiryEvent;
@@ -10,6 +12,7 @@ import com.online_library_service.exception.ResourceNotFoundException;
 import com.online_library_service.kafka.MembershipEventProducer;
 import com.online_library_service.repository.UserBookHistoryRepository;
 import com.online_library_service.repository.UserRepository;
+import com.online_library_service.security.UserStatusCache;
 
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
@@ -18,11 +21,16 @@ import org.modelmapper.ModelMapper;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -33,11 +41,44 @@ public class UserService {
 	private final UserBookHistoryRepository historyRepository;
 	private final ModelMapper modelMapper;
 	private final MembershipEventProducer membershipEventProducer;
+	private final ObjectMapper objectMapper;
 
-	public List<UserDto> getAllUsers() {
-		log.info("Fetching all active users");
-		return userRepository.findAll().stream().filter(User::isActive)
-				.map(user -> modelMapper.map(user, UserDto.class)).collect(Collectors.toList());
+	private static final int MAX_PAGE_SIZE = 100;
+	private static final int STREAM_FLUSH_INTERVAL = 500;
+
+	/** One page of active users after {@code cursor}, read straight into DTOs without loading entities. */
+	public CursorPage<UserDto> getAllUsers(Long cursor, int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		log.debug("Fetching active users after cursor {} with size {}", cursor, pageSize);
+
+		List<UserDto> users = userRepository.findActiveUsersAfter(cursor != null ? cursor : 0L,
+				PageRequest.of(0, pageSize + 1));
+		boolean hasNext = users.size() > pageSize;
+		if (hasNext) {
+			users = users.subList(0, pageSize);
+		}
+		Long nextCursor = hasNext ? users.get(users.size() - 1).getId() : null;
+		return new CursorPage<>(users, nextCursor, hasNext);
+	}
+
+	/** Writes every active user as newline-delimited JSON, holding at most one fetch batch in memory. */
+	@Transactional(readOnly = true)
+	public void exportUsers(OutputStream out) throws IOException {
+		log.info("Exporting active users");
+		try (Stream<UserDto> users = userRepository.streamActiveUsers()) {
+			Iterator<UserDto> it = users.iterator();
+			int written = 0;
+			while (it.hasNext()) {
+				out.write(objectMapper.writeValueAsBytes(it.next()));
+				out.write('\n');
+
+				if (++written % STREAM_FLUSH_INTERVAL == 0) {
+					out.flush();
+				}
+			}
+			out.flush();
+			log.info("Exported {} users", written);
+		}
 	}
 
 	@Cacheable(value = "users", key = "#id")
@@ -56,6 +97,7 @@ public class UserService {
 	}
 
 	@CachePut(value = "users", key = "#id")
+	@CacheEvict(value = UserStatusCache.CACHE_NAME, key = "#id")
 	public UserDto updateUser(Long id, UserDto userDto) {
 		log.info("Updating user id: {}", id);
 		User user = userRepository.findById(id)
@@ -68,7 +110,7 @@ public class UserService {
 		return modelMapper.map(user, UserDto.class);
 	}
 
-	@CacheEvict(value = "users", key = "#id")
+	@CacheEvict(value = { "users", UserStatusCache.CACHE_NAME }, key = "#id")
 	public void deleteUser(Long id) {
 		log.info("Deactivating user id: {}", id);
 		User user = userRepository.findById(id)
@@ -78,6 +120,7 @@ public class UserService {
 	}
 
 	@Cacheable(value = "memberships", key = "#id")
+	@Transactional
 	public String checkMembership(Long id) {
 		log.info("Checking membership for user id: {}", id);
 		User user = userRepository.findById(id)
@@ -99,7 +142,7 @@ public class UserService {
 		return "active";
 	}
 
-	@CachePut(value = "users", key = "#id")
+	@CacheEvict(value = { "users", "memberships" }, key = "#id")
 	public void extendMembership(Long id, MembershipDto dto) {
 		log.info("Extending membership for user id: {}", id);
 		User user = userRepository.findById(id)
@@ -0,0 +1,341 @@
+package com.online_library_service.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Open WebSocket sessions by user, striped across independently locked shards. A user
+ * may hold several sessions (tabs, devices). Each session gets a bounded outbound queue
+ * drained by at most one virtual thread at a time, so a slow client never blocks the
+ * caller and frames reach the client in the order they were queued. When the queue is
+ * full the message is dropped ({@code drop}) or the session is closed ({@code terminate});
+ * a client stuck mid-send past the time limit is always closed.
+ */
+@Component
+@Slf4j
+public class WebSocketSessionRegistry {
+
+    private static final OutboundSession[] NONE = new OutboundSession[0];
+    private static final String USER_ID_ATTRIBUTE = WebSocketSessionRegistry.class.getName() + ".userId";
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final int sendTimeLimitMillis;
+    private final int bufferSizeLimit;
+    private final boolean dropOnOverflow;
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter queued;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Counter terminated;
+
+    public WebSocketSessionRegistry(MeterRegistry meterRegistry,
+            @Value("${websocket.shards:64}") int shardCount,
+            @Value("${websocket.send-time-limit:5s}") Duration sendTimeLimit,
+            @Value("${websocket.buffer-size-limit:524288}") int bufferSizeLimit,
+            @Value("${websocket.overflow:drop}") String overflow) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        this.shardMask = size - 1;
+        this.sendTimeLimitMillis = (int) sendTimeLimit.toMillis();
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.dropOnOverflow = !"terminate".equalsIgnoreCase(overflow);
+
+        this.queued = messages(meterRegistry, "queued");
+        this.dropped = messages(meterRegistry, "dropped");
+        this.failed = messages(meterRegistry, "failed");
+        this.terminated = Counter.builder("websocket.sessions.terminated")
+                .description("Sessions closed for exceeding send-time or buffer limits")
+                .register(meterRegistry);
+        Gauge.builder("websocket.sessions", this, WebSocketSessionRegistry::sessionCount).register(meterRegistry);
+        Gauge.builder("websocket.users", this, WebSocketSessionRegistry::userCount).register(meterRegistry);
+        Gauge.builder("websocket.outbound.buffered", this, WebSocketSessionRegistry::bufferedBytes)
+                .description("Bytes queued for delivery across all sessions")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void register(Long userId, WebSocketSession session) {
+        session.getAttributes().put(USER_ID_ATTRIBUTE, userId);
+        shard(userId).add(userId, new OutboundSession(session, sendTimeLimitMillis, bufferSizeLimit));
+    }
+
+    public void unregister(Long userId, WebSocketSession session) {
+        shard(userId).remove(userId, session.getId());
+    }
+
+    /** Queues {@code message} on every open session of the user; false if none is open. */
+    public boolean send(Long userId, WebSocketMessage<?> message) {
+        OutboundSession[] sessions = shard(userId).get(userId);
+        boolean any = false;
+        for (OutboundSession session : sessions) {
+            any |= enqueue(session, message);
+        }
+        return any;
+    }
+
+    /** Visits every open session, one shard at a time. */
+    public void forEachSession(Consumer<OutboundSession> action) {
+        for (Shard shard : shards) {
+            for (OutboundSession[] sessions : shard.snapshot()) {
+                for (OutboundSession session : sessions) {
+                    action.accept(session);
+                }
+            }
+        }
+    }
+
+    /** Queues {@code message} on one session, applying the overflow policy. */
+    public boolean enqueue(OutboundSession session, WebSocketMessage<?> message) {
+        if (!session.isOpen()) {
+            return false;
+        }
+        if (session.getTimeSinceSendStarted() > sendTimeLimitMillis) {
+            terminate(session, "send time limit exceeded");
+            return false;
+        }
+        if (!session.offer(message, bufferSizeLimit)) {
+            if (dropOnOverflow) {
+                dropped.increment();
+            } else {
+                terminate(session, "buffer size limit exceeded");
+            }
+            return false;
+        }
+        queued.increment();
+        if (session.startDrain()) {
+            sendExecutor.execute(() -> drain(session));
+        }
+        return true;
+    }
+
+    private void drain(OutboundSession session) {
+        do {
+            WebSocketMessage<?> message;
+            while ((message = session.poll()) != null) {
+                try {
+                    session.sendMessage(message);
+                } catch (IOException | IllegalStateException e) {
+                    failed.increment();
+                    log.debug("WebSocket send to session {} failed: {}", session.getId(), e.getMessage());
+                }
+            }
+        } while (session.finishDrain());
+    }
+
+    /** Drops a session that broke its limits from the registry and closes it. */
+    private void terminate(OutboundSession session, String reason) {
+        terminated.increment();
+        log.warn("Closing slow WebSocket session {}: {}", session.getId(), reason);
+        if (session.getAttributes().get(USER_ID_ATTRIBUTE) instanceof Long userId) {
+            unregister(userId, session);
+        }
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Failed to close WebSocket session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    public int sessionCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.sessionCount();
+        }
+        return count;
+    }
+
+    public int userCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.userCount();
+        }
+        return count;
+    }
+
+    private double bufferedBytes() {
+        long[] total = new long[1];
+        forEachSession(session -> total[0] += session.pendingBytes());
+        return total[0];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+        forEachSession(session -> {
+            try {
+                session.close(CloseStatus.GOING_AWAY);
+            } catch (IOException e) {
+                log.debug("Failed to close WebSocket session {}: {}", session.getId(), e.getMessage());
+            }
+        });
+    }
+
+    private Shard shard(Long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return shards[(int) (h >>> 32) & shardMask];
+    }
+
+    private static Counter messages(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("websocket.messages").tag("result", result).register(meterRegistry);
+    }
+
+    /**
+     * A session with its outbound queue. Only the draining thread calls {@link #sendMessage},
+     * so the decorator's own buffer holds at most the frame being written; its send start
+     * time is what the registry checks against the send-time limit.
+     */
+    public static final class OutboundSession extends ConcurrentWebSocketSessionDecorator {
+
+        private final Queue<WebSocketMessage<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queuedBytes = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        OutboundSession(WebSocketSession session, int sendTimeLimitMillis, int bufferSizeLimit) {
+            super(session, sendTimeLimitMillis, bufferSizeLimit);
+        }
+
+        /** Bytes waiting in the queue plus the frame being written, if any. */
+        public int pendingBytes() {
+            return queuedBytes.get() + getBufferSize();
+        }
+
+        boolean offer(WebSocketMessage<?> message, int limit) {
+            int length = message.getPayloadLength();
+            int current;
+            do {
+                current = queuedBytes.get();
+                if (current + length > limit) {
+                    return false;
+                }
+            } while (!queuedBytes.compareAndSet(current, current + length));
+            queue.add(message);
+            return true;
+        }
+
+        WebSocketMessage<?> poll() {
+            WebSocketMessage<?> message = queue.poll();
+            if (message != null) {
+                queuedBytes.addAndGet(-message.getPayloadLength());
+            }
+            return message;
+        }
+
+        /** True if the caller must start a drain; false if one is already running. */
+        boolean startDrain() {
+            return draining.compareAndSet(false, true);
+        }
+
+        /** Ends a drain; true if a message raced in and the caller must keep draining. */
+        boolean finishDrain() {
+            draining.set(false);
+            return !queue.isEmpty() && draining.compareAndSet(false, true);
+        }
+    }
+
+    /** One stripe of the registry; arrays are copied on write so readers never see a partial update. */
+    private static final class Shard {
+
+        private final Map<Long, OutboundSession[]> sessions = new HashMap<>();
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private int sessionCount;
+
+        void add(Long userId, OutboundSession session) {
+            lock.writeLock().lock();
+            try {
+                OutboundSession[] current = sessions.getOrDefault(userId, NONE);
+                OutboundSession[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = session;
+                sessions.put(userId, next);
+                sessionCount++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long userId, String sessionId) {
+            lock.writeLock().lock();
+            try {
+                OutboundSession[] current = sessions.get(userId);
+                if (current == null) {
+                    return;
+                }
+                OutboundSession[] next = Arrays.stream(current)
+                        .filter(s -> !s.getId().equals(sessionId))
+                        .toArray(OutboundSession[]::new);
+                sessionCount -= current.length - next.length;
+                if (next.length == 0) {
+                    sessions.remove(userId);
+                } else {
+                    sessions.put(userId, next);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        OutboundSession[] get(Long userId) {
+            lock.readLock().lock();
+            try {
+                return sessions.getOrDefault(userId, NONE);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        OutboundSession[][] snapshot() {
+            lock.readLock().lock();
+            try {
+                return sessions.values().toArray(OutboundSession[][]::new);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int sessionCount() {
+            lock.readLock().lock();
+            try {
+                return sessionCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int userCount() {
+            lock.readLock().lock();
+            try {
+                return sessions.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.online_library_service.cache;
+
+import com.online_library_service.dto.BookDto;
+import com.online_library_service.enums.BookStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Cache for filtered book lists with tag-based invalidation. Each list depends on the
+ * category, author and status it was filtered by (or on the catalog as a whole when
+ * none was given). Every tag has a generation counter in Redis that is folded into
+ * the cache key, so a write bumps the counters of the tags it touches and the stale
+ * entries simply stop being addressed and age out with the cache TTL.
+ */
+@Component
+@Slf4j
+public class CatalogListCache {
+
+    public static final String CACHE_NAME = "bookLists";
+
+    private static final String GENERATION_PREFIX = "catalog:gen:";
+    private static final String ALL_TAG = "all";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final Counter hits;
+    private final Counter misses;
+
+    public CatalogListCache(StringRedisTemplate redisTemplate, CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.hits = Counter.builder("catalog.cache.lists").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("catalog.cache.lists").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("catalog.cache.lists.hit.ratio", this, CatalogListCache::hitRatio).register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<BookDto> get(String category, String author, String name, BookStatus status,
+            Supplier<List<BookDto>> loader) {
+        String key;
+        Cache cache;
+        try {
+            key = cacheKey(category, author, name, status);
+            cache = cacheManager.getCache(CACHE_NAME);
+            List<BookDto> cached = cache != null ? cache.get(key, List.class) : null;
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Catalog list cache unavailable, loading from database: {}", ex.getMessage());
+            return loader.get();
+        }
+
+        misses.increment();
+        List<BookDto> books = loader.get();
+        if (cache != null) {
+            try {
+                cache.put(key, new ArrayList<>(books));
+            } catch (DataAccessException ex) {
+                log.warn("Failed to cache book list {}: {}", key, ex.getMessage());
+            }
+        }
+        return books;
+    }
+
+    /**
+     * Invalidates every cached list that could contain a book with these values. Call
+     * once for the state before a write and once for the state after it when they differ.
+     */
+    public void invalidate(String category, String author, BookStatus status) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(GENERATION_PREFIX + ALL_TAG);
+        for (String tag : tags(category, author, status)) {
+            keys.add(GENERATION_PREFIX + tag);
+        }
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                keys.forEach(stringConnection::incr);
+                return null;
+            });
+        } catch (DataAccessException ex) {
+            log.error("❌ Failed to bump catalog cache generations {}", keys, ex);
+        }
+    }
+
+    private String cacheKey(String category, String author, String name, BookStatus status) {
+        List<String> tags = tags(category, author, status);
+        if (tags.isEmpty()) {
+            tags = List.of(ALL_TAG);
+        }
+        List<String> generations = redisTemplate.opsForValue()
+                .multiGet(tags.stream().map(t -> GENERATION_PREFIX + t).toList());
+
+        StringBuilder key = new StringBuilder();
+        key.append("c=").append(blankToEmpty(category))
+                .append("|a=").append(blankToEmpty(author))
+                .append("|n=").append(blankToEmpty(name))
+                .append("|s=").append(status != null ? status.name() : "")
+                .append("|g=");
+        for (int i = 0; i < tags.size(); i++) {
+            String generation = generations != null ? generations.get(i) : null;
+            key.append(i > 0 ? "," : "").append(generation != null ? generation : "0");
+        }
+        return key.toString();
+    }
+
+    private static List<String> tags(String category, String author, BookStatus status) {
+        List<String> tags = new ArrayList<>(3);
+        if (category != null && !category.isEmpty()) {
+            tags.add("category:" + category);
+        }
+        if (author != null && !author.isEmpty()) {
+            tags.add("author:" + author);
+        }
+        if (status != null) {
+            tags.add("status:" + status.name());
+        }
+        return tags;
+    }
+
+    private static String blankToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+}
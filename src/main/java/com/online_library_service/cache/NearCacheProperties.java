@@ -0,0 +1,45 @@
+package com.online_library_service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "cache.near")
+public class NearCacheProperties {
+
+    private String invalidationChannel = "cache:invalidation";
+
+    private Spec defaults = new Spec(Duration.ofSeconds(30), 10_000L, null);
+
+    private Map<String, Spec> caches = new HashMap<>();
+
+    public Spec specFor(String cacheName) {
+        Spec spec = caches.get(cacheName);
+        if (spec == null) {
+            return defaults;
+        }
+        Spec merged = new Spec();
+        merged.setLocalTtl(spec.getLocalTtl() != null ? spec.getLocalTtl() : defaults.getLocalTtl());
+        merged.setLocalMaxWeight(spec.getLocalMaxWeight() != null ? spec.getLocalMaxWeight() : defaults.getLocalMaxWeight());
+        merged.setRemoteTtl(spec.getRemoteTtl() != null ? spec.getRemoteTtl() : defaults.getRemoteTtl());
+        return merged;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Spec {
+        /** How long an entry may be served from the local tier. */
+        private Duration localTtl;
+        /** Local tier capacity; a collection weighs its size, anything else weighs 1. */
+        private Long localMaxWeight;
+        /** Redis TTL; falls back to spring.cache.redis.time-to-live when unset. */
+        private Duration remoteTtl;
+    }
+}
@@ -0,0 +1,89 @@
+package com.online_library_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Puts a Caffeine near cache in front of every Redis cache. Changes are announced on
+ * a Redis pub/sub channel as {@code nodeId|cacheName|key} (an empty key clears the
+ * cache) so other nodes drop their local copies.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager {
+
+    private static final String SEPARATOR = "|";
+
+    private final RedisCacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final NearCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(RedisCacheManager remoteCacheManager, StringRedisTemplate redisTemplate,
+            NearCacheProperties properties, MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    public void onInvalidationMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.evictLocal(parts[2].isEmpty() ? null : parts[2]);
+        }
+    }
+
+    private TwoTierCache createCache(String name) {
+        NearCacheProperties.Spec spec = properties.specFor(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .expireAfterWrite(spec.getLocalTtl())
+                .maximumWeight(spec.getLocalMaxWeight())
+                .weigher((String key, Object value) -> value instanceof Collection<?> c ? Math.max(1, c.size()) : 1)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, Tags.of("tier", "local"));
+
+        Cache remote = remoteCacheManager.getCache(name);
+        log.debug("Created two-tier cache '{}' (local ttl {}, max weight {})", name, spec.getLocalTtl(),
+                spec.getLocalMaxWeight());
+        return new TwoTierCache(name, local, remote, this::publishInvalidation, meterRegistry);
+    }
+
+    private void publishInvalidation(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(properties.getInvalidationChannel(),
+                    nodeId + SEPARATOR + cacheName + SEPARATOR + (key != null ? key : ""));
+        } catch (Exception ex) {
+            log.warn("Failed to publish near-cache invalidation for {}:{}: {}", cacheName, key, ex.getMessage());
+        }
+    }
+}
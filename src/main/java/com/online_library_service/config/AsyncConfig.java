@@ -1,18 +1,32 @@
 package com.online_library_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    /**
+     * Executor for {@code @Async} email and notification work. {@code platform} (the
+     * default) is a bounded thread pool; {@code virtual} starts a virtual thread per
+     * task, which suits this blocking SMTP I/O. Concurrency against the mail server is
+     * capped separately by {@code notifications.smtp.max-concurrent}.
+     */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(@Value("${notifications.executor.mode:platform}") String mode) {
+        if ("virtual".equalsIgnoreCase(mode)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("Async-Email-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(10);    
         executor.setMaxPoolSize(50);     
@@ -21,4 +35,41 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Workers for notification fan-out. The queue is deliberately short: when it fills,
+     * the submitting Kafka listener runs the task itself, which throttles the user scan
+     * to the rate the mail server and sockets can absorb.
+     */
+    @Bean(name = "fanoutExecutor")
+    public ThreadPoolTaskExecutor fanoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(64);
+        executor.setThreadNamePrefix("Fanout-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs password checks. The pool is kept below the core count so a burst of logins
+     * cannot take every CPU from the catalog endpoints, and the queue is bounded: a full
+     * queue rejects the attempt rather than letting request threads pile up behind it.
+     */
+    @Bean(name = "loginExecutor")
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${security.login.concurrency:0}") int concurrency,
+            @Value("${security.login.queue-capacity:100}") int queueCapacity) {
+        int threads = concurrency > 0 ? concurrency : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
 }
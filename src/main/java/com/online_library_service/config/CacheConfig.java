@@ -0,0 +1,61 @@
+package com.online_library_service.config;
+
+import com.online_library_service.cache.NearCacheProperties;
+import com.online_library_service.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties({ CacheProperties.class, NearCacheProperties.class })
+public class CacheConfig {
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate redisTemplate,
+            CacheProperties cacheProperties, NearCacheProperties nearCacheProperties, MeterRegistry meterRegistry) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig();
+        CacheProperties.Redis redis = cacheProperties.getRedis();
+        if (redis.getTimeToLive() != null) {
+            defaults = defaults.entryTtl(redis.getTimeToLive());
+        }
+        if (!redis.isCacheNullValues()) {
+            defaults = defaults.disableCachingNullValues();
+        }
+
+        RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults);
+        for (var entry : nearCacheProperties.getCaches().entrySet()) {
+            if (entry.getValue().getRemoteTtl() != null) {
+                builder.withCacheConfiguration(entry.getKey(), defaults.entryTtl(entry.getValue().getRemoteTtl()));
+            }
+        }
+        RedisCacheManager remote = builder.build();
+        remote.afterPropertiesSet();
+
+        return new TwoTierCacheManager(remote, redisTemplate, nearCacheProperties, meterRegistry);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+            TwoTierCacheManager cacheManager, NearCacheProperties nearCacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> cacheManager
+                        .onInvalidationMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(nearCacheProperties.getInvalidationChannel()));
+        return container;
+    }
+}
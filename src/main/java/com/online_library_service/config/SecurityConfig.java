@@ -1,9 +1,14 @@
 package com.online_library_service.config;
 
 import com.online_library_service.security.JwtFilter;
+import com.online_library_service.security.TokenRevocationList;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -18,6 +23,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 @Configuration
@@ -50,6 +56,9 @@ public class SecurityConfig {
                         "/actuator/info"
                 ).permitAll();
 
+                // Actuator (metrics, caches) -> Admin only
+                auth.requestMatchers("/actuator/**").hasRole("ADMIN");
+
                 // Static file serving
                 auth.requestMatchers("/uploads/**").permitAll();
 
@@ -63,6 +72,7 @@ public class SecurityConfig {
                 auth.requestMatchers(HttpMethod.DELETE, "/books/**").hasRole("ADMIN");
 
                 // Users
+                auth.requestMatchers(HttpMethod.GET, "/users/export").hasRole("ADMIN");
                 auth.requestMatchers("/users/**").hasAnyRole("ADMIN", "USER");
                 auth.requestMatchers("/users/*/borrow/*").hasAnyRole("ADMIN", "USER");
                 auth.requestMatchers("/users/*/return/*").hasAnyRole("ADMIN", "USER");
@@ -106,10 +116,15 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * Raising {@code security.password.bcrypt-strength} migrates hashes gradually: on the
+     * next successful login a weaker hash is re-encoded at the new cost through
+     * {@link org.springframework.security.core.userdetails.UserDetailsPasswordService}.
+     */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        log.debug("Initializing BCryptPasswordEncoder bean");
-        return new BCryptPasswordEncoder();
+    public BCryptPasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        log.debug("Initializing BCryptPasswordEncoder bean with strength {}", strength);
+        return new BCryptPasswordEncoder(strength);
     }
 
     @Bean
@@ -118,4 +133,17 @@ public class SecurityConfig {
         log.debug("Loading AuthenticationManager from AuthenticationConfiguration");
         return authenticationConfiguration.getAuthenticationManager();
     }
+
+    @Bean
+    public RedisMessageListenerContainer tokenRevocationListenerContainer(RedisConnectionFactory connectionFactory,
+            TokenRevocationList revocationList,
+            @Value("${security.revocation.channel:auth:revocations}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> revocationList
+                        .onRevocationMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+        return container;
+    }
 }
@@ -7,15 +7,20 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.online_library_service.Service.BookService;
 import com.online_library_service.dto.BookDto;
+import com.online_library_service.dto.CursorPage;
+import com.online_library_service.dto.SuggestionDto;
+import com.online_library_service.search.SuggestionIndex;
 import com.online_library_service.enums.BookStatus;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -25,6 +30,7 @@ import java.util.UUID;
 public class BookController {
 
 	private final BookService bookService;
+	private final SuggestionIndex suggestionIndex;
 
 	@PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
 	public ResponseEntity<BookDto> addBookWithImage(@RequestParam("title") String title,
@@ -66,6 +72,28 @@ public class BookController {
 		return ResponseEntity.ok(bookService.getAllBooks(category, author, name, status));
 	}
 
+	@GetMapping("/page")
+	public ResponseEntity<CursorPage<BookDto>> getBooksPage(@RequestParam(required = false) String category,
+			@RequestParam(required = false) String author, @RequestParam(required = false) String name,
+			@RequestParam(required = false) BookStatus status, @RequestParam(required = false) Long cursor,
+			@RequestParam(defaultValue = "20") int size) {
+		return ResponseEntity.ok(bookService.getBooksPage(category, author, name, status, cursor, size));
+	}
+
+	@GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamBooks(@RequestParam(required = false) String category,
+			@RequestParam(required = false) String author, @RequestParam(required = false) String name,
+			@RequestParam(required = false) BookStatus status) {
+		StreamingResponseBody body = out -> bookService.streamBooks(category, author, name, status, out);
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	@GetMapping("/suggest")
+	public ResponseEntity<List<SuggestionDto>> suggest(@RequestParam String q,
+			@RequestParam(defaultValue = "10") int limit) {
+		return ResponseEntity.ok(suggestionIndex.suggest(q, limit));
+	}
+
 	@GetMapping("/{id}")
 	public ResponseEntity<BookDto> getBook(@PathVariable Long id) {
 		return ResponseEntity.ok(bookService.getBookById(id));
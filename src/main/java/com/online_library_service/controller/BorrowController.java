@@ -1,11 +1,17 @@
 package com.online_library_service.controller;
 
 import com.online_library_service.Service.BorrowService;
+import com.online_library_service.dto.BulkBorrowRequest;
+import com.online_library_service.dto.BulkItemResult;
+import com.online_library_service.dto.BulkReturnRequest;
 import com.online_library_service.response.ApiResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/users/{userId}")
 @RequiredArgsConstructor
@@ -26,4 +32,18 @@ public class BorrowController {
         borrowService.returnBook(userId, borrowId);
         return ResponseEntity.ok(ApiResponse.ok("Book returned successfully", null));
     }
+
+    @PostMapping("/borrow")
+    public ResponseEntity<ApiResponse<List<BulkItemResult>>> borrowBooks(@PathVariable Long userId,
+                                                                         @Valid @RequestBody BulkBorrowRequest request) {
+        return ResponseEntity.ok(ApiResponse.ok("Borrow cart processed",
+                borrowService.borrowBooks(userId, request.getBookIds())));
+    }
+
+    @PostMapping("/return")
+    public ResponseEntity<ApiResponse<List<BulkItemResult>>> returnBooks(@PathVariable Long userId,
+                                                                         @Valid @RequestBody BulkReturnRequest request) {
+        return ResponseEntity.ok(ApiResponse.ok("Return cart processed",
+                borrowService.returnBooks(userId, request.getBorrowIds())));
+    }
 }
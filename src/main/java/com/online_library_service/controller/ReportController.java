@@ -39,13 +39,17 @@ public class ReportController {
     }
 
     @GetMapping("/top-books")
-    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getTopBorrowedBooks() {
-        return ResponseEntity.ok(ApiResponse.ok("Top borrowed books fetched successfully", reportService.getTopBorrowedBooks()));
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getTopBorrowedBooks(@RequestParam(defaultValue = "10") int k,
+                                                                                     @RequestParam(required = false) Integer days,
+                                                                                     @RequestParam(defaultValue = "false") boolean exact) {
+        return ResponseEntity.ok(ApiResponse.ok("Top borrowed books fetched successfully", reportService.getTopBorrowedBooks(k, days, exact)));
     }
 
     @GetMapping("/top-users")
-    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getTopActiveUsers() {
-        return ResponseEntity.ok(ApiResponse.ok("Top active users fetched successfully", reportService.getTopActiveUsers()));
+    public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getTopActiveUsers(@RequestParam(defaultValue = "10") int k,
+                                                                                   @RequestParam(required = false) Integer days,
+                                                                                   @RequestParam(defaultValue = "false") boolean exact) {
+        return ResponseEntity.ok(ApiResponse.ok("Top active users fetched successfully", reportService.getTopActiveUsers(k, days, exact)));
     }
 
     @GetMapping("/currently-borrowed")
@@ -73,4 +77,9 @@ public class ReportController {
                                                                                           @RequestParam LocalDate end) {
         return ResponseEntity.ok(ApiResponse.ok("Category counts in range fetched successfully", reportService.getCategoryCountsInRange(start, end)));
     }
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildRollups() {
+        return ResponseEntity.ok(ApiResponse.ok("Report rollups rebuilt successfully", reportService.rebuildRollups()));
+    }
 }
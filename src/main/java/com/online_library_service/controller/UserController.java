@@ -1,14 +1,17 @@
 package com.online_library_service.controller;
 
 import com.online_library_service.Service.UserService;
+import com.online_library_service.dto.CursorPage;
 import com.online_library_service.dto.MembershipDto;
 import com.online_library_service.dto.UserDto;
 import com.online_library_service.entity.UserBookHistory;
 import com.online_library_service.response.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -20,8 +23,15 @@ public class UserController {
     private final UserService userService;
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<UserDto>>> getAllUsers() {
-        return ResponseEntity.ok(ApiResponse.ok("Fetched all users", userService.getAllUsers()));
+    public ResponseEntity<ApiResponse<CursorPage<UserDto>>> getAllUsers(@RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(ApiResponse.ok("Fetched users", userService.getAllUsers(cursor, size)));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = userService::exportUsers;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
@@ -5,8 +5,10 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class BookDto {
+public class BookDto implements Serializable {
     private Long id;
 
     @NotBlank(message = "Title is required")
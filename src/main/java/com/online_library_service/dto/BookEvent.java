@@ -0,0 +1,19 @@
+package com.online_library_service.dto;
+
+import com.online_library_service.entity.Book;
+import com.online_library_service.enums.BookEventType;
+import com.online_library_service.enums.BookStatus;
+
+/** One catalog change, as carried on the book events topic by {@code BookEventCodec}. */
+public record BookEvent(BookEventType type, long bookId, String title, String author, String category,
+        BookStatus status) {
+
+    public static BookEvent of(BookEventType type, Book book, BookStatus status) {
+        return new BookEvent(type, book.getId(), book.getTitle(), book.getAuthor(), book.getCategory(),
+                status != null ? status : book.getStatus());
+    }
+
+    public BookEvent withType(BookEventType type) {
+        return new BookEvent(type, bookId, title, author, category, status);
+    }
+}
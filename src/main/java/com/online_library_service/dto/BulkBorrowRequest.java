@@ -0,0 +1,14 @@
+package com.online_library_service.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkBorrowRequest {
+    @NotEmpty(message = "At least one book id is required")
+    @Size(max = 50, message = "At most 50 books can be borrowed at once")
+    private List<Long> bookIds;
+}
@@ -0,0 +1,22 @@
+package com.online_library_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResult {
+    private Long id;
+    private boolean success;
+    private String message;
+
+    public static BulkItemResult ok(Long id, String message) {
+        return new BulkItemResult(id, true, message);
+    }
+
+    public static BulkItemResult failed(Long id, String message) {
+        return new BulkItemResult(id, false, message);
+    }
+}
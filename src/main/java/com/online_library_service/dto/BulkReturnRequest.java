@@ -0,0 +1,14 @@
+package com.online_library_service.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkReturnRequest {
+    @NotEmpty(message = "At least one borrow id is required")
+    @Size(max = 50, message = "At most 50 books can be returned at once")
+    private List<Long> borrowIds;
+}
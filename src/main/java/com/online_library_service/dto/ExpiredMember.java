@@ -0,0 +1,14 @@
+package com.online_library_service.dto;
+
+import java.time.LocalDate;
+
+/** A member deactivated by the expiry job, as returned by the expiring {@code UPDATE}. */
+public interface ExpiredMember {
+    Long getId();
+
+    String getEmail();
+
+    String getName();
+
+    LocalDate getMembershipEndDate();
+}
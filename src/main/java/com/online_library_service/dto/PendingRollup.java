@@ -0,0 +1,18 @@
+package com.online_library_service.dto;
+
+import java.time.LocalDate;
+
+/** A borrow claimed by the rollup aggregator, as returned by the claiming {@code UPDATE}. */
+public interface PendingRollup {
+    Long getUserId();
+
+    String getUserName();
+
+    Long getBookId();
+
+    String getTitle();
+
+    String getCategory();
+
+    LocalDate getTakenDate();
+}
@@ -0,0 +1,15 @@
+package com.online_library_service.dto;
+
+import com.online_library_service.enums.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDto {
+    private String text;
+    private SuggestionType type;
+    private long weight;
+}
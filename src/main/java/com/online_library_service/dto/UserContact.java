@@ -0,0 +1,12 @@
+package com.online_library_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** Just enough of a user to notify them, so fan-out scans never hydrate full entities. */
+@Data
+@AllArgsConstructor
+public class UserContact {
+    private Long id;
+    private String email;
+}
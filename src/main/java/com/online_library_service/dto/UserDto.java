@@ -9,13 +9,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.time.LocalDate;
 
 @Data
 @Builder
 @AllArgsConstructor   
 @NoArgsConstructor    
-public class UserDto {
+public class UserDto implements Serializable {
     private Long id;
 
     @NotBlank(message = "Name is required")
@@ -0,0 +1,7 @@
+package com.online_library_service.dto;
+
+import java.io.Serializable;
+
+/** What the JWT filter needs to know about a user on every request: who, what role, still active. */
+public record UserStatus(Long id, String email, String role, boolean enabled) implements Serializable {
+}
@@ -0,0 +1,22 @@
+package com.online_library_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A WebSocket frame routed through the delivery topic. {@code userIds} targets those
+ * users' sessions; when it is null the frame is a broadcast filtered by
+ * {@code category}/{@code author} subscriptions.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebSocketDelivery {
+    private List<Long> userIds;
+    private String category;
+    private String author;
+    private String payload;
+}
@@ -0,0 +1,39 @@
+package com.online_library_service.entity;
+
+import com.online_library_service.enums.RollupDimension;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated borrow count for one bucket of one report dimension, so reports never
+ * have to group the full history. Borrows are folded in shortly after they commit, in
+ * batches, by {@code BorrowRollupAggregator}.
+ */
+@Entity
+@Table(name = "borrow_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_borrow_rollups_bucket", columnNames = { "dimension", "bucket_key" }),
+        indexes = @Index(name = "idx_borrow_rollups_dimension_date", columnList = "dimension, bucket_date"))
+@Data
+public class BorrowRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private RollupDimension dimension;
+
+    @Column(name = "bucket_key", nullable = false)
+    private String bucketKey;
+
+    private String label;
+
+    @Column(name = "bucket_date")
+    private LocalDate bucketDate;
+
+    @Column(name = "borrow_count", nullable = false)
+    private long borrowCount;
+}
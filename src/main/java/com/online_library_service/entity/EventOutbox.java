@@ -0,0 +1,37 @@
+package com.online_library_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One Kafka record waiting to be relayed. Rows are written in the same transaction as
+ * the entity change they describe, so an event exists exactly when its change
+ * committed. {@code txId} is the writing transaction's id; {@code EventOutboxRelay}
+ * publishes in {@code (txId, id)} order behind a high-water mark in {@link OutboxCursor}.
+ */
+@Entity
+@Table(name = "event_outbox", indexes = @Index(name = "idx_event_outbox_tx_id", columnList = "tx_id, id"))
+@Data
+public class EventOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tx_id", nullable = false)
+    private Long txId;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    @Column(name = "event_key", length = 100)
+    private String eventKey;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
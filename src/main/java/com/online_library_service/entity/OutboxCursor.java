@@ -0,0 +1,35 @@
+package com.online_library_service.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/** How far a relay has published through {@link EventOutbox}: every row at or below {@code (lastTxId, lastId)}. */
+@Entity
+@Table(name = "outbox_cursor")
+@Data
+public class OutboxCursor {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "last_tx_id", nullable = false)
+    private long lastTxId;
+
+    @Column(name = "last_id", nullable = false)
+    private long lastId;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+}
@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.CreationTimestamp;
 
 @Entity
-@Table(name = "user_book_history")
+@Table(name = "user_book_history", indexes = @Index(name = "idx_history_rollup_pending", columnList = "rollup_pending"))
 @Data
 public class UserBookHistory {
 
@@ -39,6 +39,11 @@ public class UserBookHistory {
 	@Column(name = "returned_date")
 	private LocalDate returnedDate;
 
+	// New borrows start pending until BorrowRollupAggregator counts them; the column default
+	// keeps rows that predate the flag (already in the rollups) from being counted twice.
+	@Column(name = "rollup_pending", nullable = false, columnDefinition = "boolean not null default false")
+	private boolean rollupPending = true;
+
 	@CreationTimestamp
 	@Column(updatable = false)
 	private LocalDateTime createdAt;
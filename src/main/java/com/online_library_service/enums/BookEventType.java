@@ -0,0 +1,9 @@
+package com.online_library_service.enums;
+
+/** Catalog changes published on the book events topic. Ordinals are part of the wire format: append only. */
+public enum BookEventType {
+    BOOK_ADDED,
+    BOOK_UPDATED,
+    BOOK_STATUS_CHANGED,
+    BOOK_DELETED
+}
@@ -0,0 +1,8 @@
+package com.online_library_service.enums;
+
+public enum EmailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
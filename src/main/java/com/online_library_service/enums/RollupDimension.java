@@ -0,0 +1,13 @@
+package com.online_library_service.enums;
+
+public enum RollupDimension {
+    TOTAL,
+    DAY,
+    MONTH,
+    YEAR,
+    CATEGORY,
+    CATEGORY_DAY,
+    BOOK,
+    BOOK_DAY,
+    USER
+}
@@ -0,0 +1,7 @@
+package com.online_library_service.enums;
+
+public enum SuggestionType {
+    TITLE,
+    AUTHOR,
+    CATEGORY
+}
@@ -0,0 +1,132 @@
+package com.online_library_service.kafka;
+
+import com.online_library_service.dto.BookEvent;
+import com.online_library_service.enums.BookEventType;
+import com.online_library_service.enums.BookStatus;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Length-prefixed binary encoding of {@link BookEvent}:
+ *
+ * <pre>
+ * version:u8 type:u8 bookId:varlong status:u8 title:str author:str category:str
+ * str = (utf8Length + 1):varint utf8Bytes   (0 means null)
+ * </pre>
+ *
+ * Enum ordinals are written as-is, with 0xFF for a null status. A new field means a
+ * new version byte; readers reject versions they do not know.
+ */
+public class BookEventCodec implements Serializer<BookEvent>, Deserializer<BookEvent> {
+
+    static final byte VERSION = 1;
+
+    private static final BookEventType[] TYPES = BookEventType.values();
+    private static final BookStatus[] STATUSES = BookStatus.values();
+    private static final int NO_STATUS = 0xFF;
+
+    @Override
+    public byte[] serialize(String topic, BookEvent event) {
+        if (event == null) {
+            return null;
+        }
+        byte[] title = utf8(event.title());
+        byte[] author = utf8(event.author());
+        byte[] category = utf8(event.category());
+        ByteBuffer out = ByteBuffer.allocate(3 + 10 + 3 * 5 + length(title) + length(author) + length(category));
+        out.put(VERSION);
+        out.put((byte) event.type().ordinal());
+        writeVarLong(out, event.bookId());
+        out.put((byte) (event.status() == null ? NO_STATUS : event.status().ordinal()));
+        writeString(out, title);
+        writeString(out, author);
+        writeString(out, category);
+        byte[] bytes = new byte[out.position()];
+        out.flip().get(bytes);
+        return bytes;
+    }
+
+    @Override
+    public BookEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new SerializationException("Unsupported book event version " + version);
+            }
+            BookEventType type = TYPES[in.get()];
+            long bookId = readVarLong(in);
+            int status = in.get() & 0xFF;
+            return new BookEvent(type, bookId, readString(in), readString(in), readString(in),
+                    status == NO_STATUS ? null : STATUSES[status]);
+        } catch (RuntimeException e) {
+            if (e instanceof SerializationException) {
+                throw e;
+            }
+            throw new SerializationException("Malformed book event of " + data.length + " bytes", e);
+        }
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void writeString(ByteBuffer out, byte[] bytes) {
+        if (bytes == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        writeVarLong(out, bytes.length + 1L);
+        out.put(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Varint too long");
+    }
+}
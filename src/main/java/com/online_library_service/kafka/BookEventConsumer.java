@@ -1,18 +1,20 @@
 package com.online_library_service.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.online_library_service.Service.NotificationService;
-import com.online_library_service.Service.NotificationWebSocketHandler;
-import com.online_library_service.entity.User;
-import com.online_library_service.repository.UserRepository;
+import com.online_library_service.Service.NotificationFanoutService;
+import com.online_library_service.dto.BookEvent;
+import com.online_library_service.enums.BookEventType;
+import com.online_library_service.notification.NotificationTemplates;
+import com.online_library_service.notification.NotificationType;
+import com.online_library_service.notification.RenderedNotification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,95 +23,65 @@ import java.util.Map;
 @Slf4j
 public class BookEventConsumer {
 
-	private final NotificationService notificationService;
-	private final NotificationWebSocketHandler notificationWebSocketHandler;
-	private final UserRepository userRepository;
-	private final ObjectMapper objectMapper;
-	private final int pageSize = 1000;
+	private final NotificationFanoutService notificationFanoutService;
+	private final NotificationTemplates notificationTemplates;
 
-	@KafkaListener(topics = "book.events", groupId = "book-notification-group", concurrency = "3")
-	public void handleBookEvent(String payload) {
-		try {
-			@SuppressWarnings("unchecked")
-			Map<String, Object> event = objectMapper.readValue(payload, HashMap.class);
-
-			String eventType = (String) event.get("eventType");
-			String title = (String) event.get("title");
-			String author = (String) event.get("author");
-			String category = (String) event.get("category");
-			String status = (String) event.get("status");
-
-			String subject;
-			String body;
-			String wsMessage;
-
-			switch (eventType) {
-			case "BOOK_ADDED":
-				subject = "New Book Added: " + title;
-				body = String.format(
-						"A new book has been added to the library!\n\nTitle: %s\nAuthor: %s\nCategory: %s\n\nCheck it out in your library account.",
-						title, author, category);
-				wsMessage = "New book added: " + title;
-				break;
-
-			case "BOOK_UPDATED":
-				subject = "Book Updated: " + title;
-				body = String.format(
-						"The book details have been updated.\n\nTitle: %s\nAuthor: %s\nCategory: %s\nStatus: %s", title,
-						author, category, status);
-				wsMessage = "Book updated: " + title;
-				break;
-
-			case "BOOK_STATUS_CHANGED":
-				subject = "Book Status Changed: " + title;
-				body = String.format("The status of book '%s' has been changed to: %s", title, status);
-				wsMessage = "Book status changed: " + title;
-				break;
-
-			case "BOOK_DELETED":
-				subject = "Book Deleted: " + title;
-				body = String.format("The book '%s' has been removed from the library collection.", title);
-				wsMessage = "Book deleted: " + title;
-				break;
-
-			default:
-				log.debug("Skipping unknown event type: {}", eventType);
-				return;
+	@KafkaListener(topics = "${kafka.topics.book-events}", groupId = "book-notification-group", concurrency = "3",
+			containerFactory = "bookEventBatchFactory")
+	public void handleBookEvents(List<ConsumerRecord<String, BookEvent>> records) {
+		List<BookEvent> events = new ArrayList<>(records.size());
+		for (ConsumerRecord<String, BookEvent> record : records) {
+			if (record.value() != null) {
+				events.add(record.value());
 			}
+		}
+		Collection<BookEvent> coalesced = coalesce(events);
+		log.debug("Book event batch: {} records, {} notifications", records.size(), coalesced.size());
+
+		for (BookEvent event : coalesced) {
+			try {
+				RenderedNotification notification = notificationTemplates.render(notificationType(event.type()),
+						event.title(), event.author(), event.category(), event.status());
+				notificationFanoutService.fanOut(event.type().name(), event.category(), event.author(),
+						notification.subject(), notification.body(), notification.websocket());
+			} catch (Exception ex) {
+				log.error("❌ Failed to process {} event for book {}", event.type(), event.bookId(), ex);
+			}
+		}
+	}
 
-			int page = 0;
-			List<User> users;
-			Pageable pageable;
-
-			do {
-				pageable = PageRequest.of(page, pageSize);
-				users = userRepository.findByActiveTrue(pageable).getContent();
-
-				if (!users.isEmpty()) {
-					String[] emails = users.stream().map(User::getEmail).toArray(String[]::new);
-					notificationService.sendBulkEmail(emails, subject, body);
-
-					for (User user : users) {
-						try {
-							Map<String, String> wsPayload = new HashMap<>();
-							wsPayload.put("message", wsMessage);
-
-							String wsJson = objectMapper.writeValueAsString(wsPayload);
-							notificationWebSocketHandler.sendNotificationToUser(user.getId(), wsJson);
-						} catch (Exception e) {
-							log.error("Failed to send WS notification to user {}", user.getId(), e);
-						}
-					}
-
-					log.info("✅ Sent notifications for {} event: '{}' to {} users in page {}", eventType, title,
-							users.size(), page + 1);
+	/**
+	 * Collapses a batch to at most one notification per book, in order of first
+	 * appearance, carrying the book's latest fields. A book added in the batch is still
+	 * announced as added, and one both added and deleted in the batch is skipped.
+	 */
+	static Collection<BookEvent> coalesce(List<BookEvent> events) {
+		Map<Long, BookEvent> first = new LinkedHashMap<>();
+		Map<Long, BookEvent> latest = new LinkedHashMap<>();
+		for (BookEvent event : events) {
+			first.putIfAbsent(event.bookId(), event);
+			latest.put(event.bookId(), event);
+		}
+		List<BookEvent> coalesced = new ArrayList<>(first.size());
+		for (BookEvent start : first.values()) {
+			BookEvent end = latest.get(start.bookId());
+			if (start.type() == BookEventType.BOOK_ADDED) {
+				if (end.type() != BookEventType.BOOK_DELETED) {
+					coalesced.add(end.withType(BookEventType.BOOK_ADDED));
 				}
-
-				page++;
-			} while (!users.isEmpty());
-
-		} catch (Exception ex) {
-			log.error("❌ Failed to process book event: {}", payload, ex);
+			} else {
+				coalesced.add(end);
+			}
 		}
+		return coalesced;
+	}
+
+	private static NotificationType notificationType(BookEventType type) {
+		return switch (type) {
+		case BOOK_ADDED -> NotificationType.BOOK_ADDED;
+		case BOOK_UPDATED -> NotificationType.BOOK_UPDATED;
+		case BOOK_STATUS_CHANGED -> NotificationType.BOOK_STATUS_CHANGED;
+		case BOOK_DELETED -> NotificationType.BOOK_DELETED;
+		};
 	}
 }
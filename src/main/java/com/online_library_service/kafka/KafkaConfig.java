@@ -1,30 +1,58 @@
 package com.online_library_service.kafka;
 
-import com.online_library_service.dto.UserExpiryEvent;
+import com.online_library_service.dto.BookEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
-import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
+@Slf4j
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.book-events.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${kafka.producer.profile:balanced}")
+    private String producerProfile;
+
+    @Value("${kafka.producer.delivery-timeout:2m}")
+    private Duration deliveryTimeout;
+
+    /**
+     * Settings shared by every producer: the chosen {@link ProducerProfile} plus the
+     * delivery timeout that bounds the client's built-in retries.
+     */
+    private Map<String, Object> producerConfig() {
+        Map<String, Object> config = new HashMap<>(ProducerProfile.from(producerProfile).settings());
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, (int) deliveryTimeout.toMillis());
+        return config;
+    }
+
     @Bean
     public ProducerFactory<String, String> stringProducerFactory() {
-        Map<String, Object> config = new HashMap<>();
-        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        Map<String, Object> config = producerConfig();
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         return new DefaultKafkaProducerFactory<>(config);
@@ -37,17 +65,49 @@ public class KafkaConfig {
     }
 
     @Bean
-    public ProducerFactory<String, UserExpiryEvent> userExpiryProducerFactory() {
+    public ProducerFactory<String, byte[]> outboxProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerConfig(), new StringSerializer(), new ByteArraySerializer());
+    }
+
+    /** Publishes outbox rows, whose payloads were serialized when they were written. */
+    @Bean
+    @Qualifier("outboxKafkaTemplate")
+    public KafkaTemplate<String, byte[]> outboxKafkaTemplate() {
+        return new KafkaTemplate<>(outboxProducerFactory());
+    }
+
+    @Bean
+    public ConsumerFactory<String, BookEvent> bookEventConsumerFactory() {
         Map<String, Object> config = new HashMap<>();
-        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(config);
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), bookEventDeserializer());
+    }
+
+    /**
+     * The binary codec behind an error-handling wrapper: a record it cannot read, such as
+     * a JSON event written before the codec replaced it on this topic, is logged and handed
+     * to listeners as a null value, which they skip, instead of failing every poll of its
+     * partition.
+     */
+    static ErrorHandlingDeserializer<BookEvent> bookEventDeserializer() {
+        ErrorHandlingDeserializer<BookEvent> deserializer = new ErrorHandlingDeserializer<>(new BookEventCodec());
+        deserializer.setFailedDeserializationFunction(failure -> {
+            log.warn("⚠️ Skipping unreadable {}-byte record on {}: {}",
+                    failure.getData() == null ? 0 : failure.getData().length, failure.getTopic(),
+                    failure.getException().getMessage());
+            return null;
+        });
+        return deserializer;
     }
 
+    /** Hands book event listeners whole poll batches so they can coalesce events per book. */
     @Bean
-    @Qualifier("userExpiryKafkaTemplate")
-    public KafkaTemplate<String, UserExpiryEvent> userExpiryKafkaTemplate() {
-        return new KafkaTemplate<>(userExpiryProducerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, BookEvent> bookEventBatchFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, BookEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(bookEventConsumerFactory());
+        factory.setBatchListener(true);
+        return factory;
     }
 }
@@ -1,35 +1,57 @@
 package com.online_library_service.kafka;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.online_library_service.dto.UserExpiryEvent;
+import com.online_library_service.repository.EventOutboxRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.producer.RecordMetadata;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/** Records expiry events in the event outbox as part of the caller's transaction. */
 @Component
 @RequiredArgsConstructor
 @Slf4j
+@Transactional(propagation = Propagation.MANDATORY)
 public class MembershipEventProducer {
 
-    @Qualifier("userExpiryKafkaTemplate")
-    private final KafkaTemplate<String, UserExpiryEvent> kafkaTemplate;
-
     private static final String TOPIC = "membership.expired";
 
+    private final EventOutboxRepository eventOutboxRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
     public void publishExpiryEvent(UserExpiryEvent event) {
-        log.info("Publishing expiry event for userId={} email={}", event.getUserId(), event.getEmail());
+        log.debug("Queueing expiry event for userId={}", event.getUserId());
+        try {
+            eventOutboxRepository.append(TOPIC, event.getUserId().toString(), objectMapper.writeValueAsBytes(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize expiry event for userId " + event.getUserId(), e);
+        }
+    }
 
-        kafkaTemplate.send(TOPIC, event.getUserId().toString(), event)
-                .whenComplete((result, ex) -> {
-                    if (ex == null && result != null) {
-                        RecordMetadata metadata = result.getRecordMetadata();
-                        log.debug("✅ Published event for userId {} to partition {} offset {}",
-                                event.getUserId(), metadata.partition(), metadata.offset());
-                    } else if (ex != null) {
-                        log.error("❌ Failed to publish event for userId {}", event.getUserId(), ex);
-                    }
-                });
+    /** Queues {@code events} with one batched insert. */
+    public void publishExpiryEvents(List<UserExpiryEvent> events) {
+        List<SqlParameterSource> rows = new ArrayList<>(events.size());
+        for (UserExpiryEvent event : events) {
+            try {
+                rows.add(new MapSqlParameterSource()
+                        .addValue("topic", TOPIC)
+                        .addValue("eventKey", event.getUserId().toString())
+                        .addValue("payload", objectMapper.writeValueAsBytes(event)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize expiry event for userId " + event.getUserId(), e);
+            }
+        }
+        jdbcTemplate.batchUpdate(EventOutboxRepository.APPEND, rows.toArray(SqlParameterSource[]::new));
+        log.debug("Queued {} expiry events", events.size());
     }
 }
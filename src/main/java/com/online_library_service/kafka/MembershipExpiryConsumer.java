@@ -2,6 +2,9 @@ package com.online_library_service.kafka;
 
 import com.online_library_service.Service.NotificationService;
 import com.online_library_service.dto.UserExpiryEvent;
+import com.online_library_service.notification.NotificationTemplates;
+import com.online_library_service.notification.NotificationType;
+import com.online_library_service.notification.RenderedNotification;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
@@ -14,8 +17,12 @@ import org.springframework.stereotype.Component;
 public class MembershipExpiryConsumer {
 
 	private final NotificationService notificationService;
+	private final NotificationTemplates notificationTemplates;
+	private final WebSocketDeliveryBus webSocketDeliveryBus;
 
-	@KafkaListener(topics = "membership.expired", groupId = "membership-notification-group", concurrency = "3")
+	// Outbox records carry plain JSON without type headers.
+	@KafkaListener(topics = "membership.expired", groupId = "membership-notification-group", concurrency = "3",
+			properties = "spring.json.value.default.type=com.online_library_service.dto.UserExpiryEvent")
 	public void handleExpiryEvent(UserExpiryEvent event) {
 		log.info("Received expiry event for userId={} email={}", event.getUserId(), event.getEmail());
 		try {
@@ -27,12 +34,13 @@ public class MembershipExpiryConsumer {
 
 	@Async
 	public void sendExpiryEmailAsync(UserExpiryEvent event) {
-		String subject = "Your Library Membership has expired";
-		String body = String.format(
-				"Hi %s,\n\nYour library membership expired on %s. Please renew to continue borrowing books.\n\nRegards,\nLibrary Team",
+		RenderedNotification notification = notificationTemplates.render(NotificationType.MEMBERSHIP_EXPIRED,
 				event.getName(), event.getMembershipEndDate());
 
-		notificationService.sendEmail(event.getEmail(), subject, body);
+		notificationService.sendEmail(event.getEmail(), notification.subject(), notification.body());
+		// Only one instance consumes this event, so the frame goes through the bus to reach
+		// the user's sessions on whichever node holds them.
+		webSocketDeliveryBus.sendToUser(event.getUserId(), notification.websocket());
 		log.info("Notification sent for userId={}", event.getUserId());
 	}
 }
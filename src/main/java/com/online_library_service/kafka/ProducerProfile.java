@@ -0,0 +1,47 @@
+package com.online_library_service.kafka;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Producer batching presets, picked with {@code kafka.producer.profile}. Every profile is
+ * idempotent with {@code acks=all}, so the client's own retries never duplicate or
+ * reorder records within a partition; they differ only in how long records wait to be
+ * batched and whether batches are compressed.
+ */
+public enum ProducerProfile {
+
+    /** Send as soon as possible; small uncompressed batches. */
+    LOW_LATENCY(0, 16 * 1024, "none"),
+    /** A few milliseconds of batching; the default. */
+    BALANCED(5, 64 * 1024, "lz4"),
+    /** Larger, longer-lingering compressed batches for bulk publishing. */
+    THROUGHPUT(20, 256 * 1024, "lz4");
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+
+    ProducerProfile(int lingerMs, int batchSize, String compressionType) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+    }
+
+    public Map<String, Object> settings() {
+        return Map.of(
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+    }
+
+    /** Accepts {@code low-latency}, {@code balanced} or {@code throughput}, in any case. */
+    public static ProducerProfile from(String name) {
+        return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+}
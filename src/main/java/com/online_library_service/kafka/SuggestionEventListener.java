@@ -0,0 +1,43 @@
+package com.online_library_service.kafka;
+
+import com.online_library_service.dto.BookEvent;
+import com.online_library_service.search.SuggestionIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionEventListener {
+
+	private final SuggestionIndex suggestionIndex;
+
+	// Every instance keeps its own suggestion index, so each one needs its own consumer group.
+	// The index is rebuilt from the database at startup, so only events from then on matter.
+	@KafkaListener(topics = "${kafka.topics.book-events}", groupId = "book-suggest-${app.instance-id}",
+			containerFactory = "bookEventBatchFactory", properties = "auto.offset.reset=latest")
+	public void handleBookEvents(List<ConsumerRecord<String, BookEvent>> records) {
+		for (ConsumerRecord<String, BookEvent> record : records) {
+			BookEvent event = record.value();
+			if (event == null) {
+				continue;
+			}
+			try {
+				switch (event.type()) {
+				case BOOK_ADDED, BOOK_UPDATED -> suggestionIndex.upsert(event.bookId(), event.title(),
+						event.author(), event.category());
+				case BOOK_DELETED -> suggestionIndex.remove(event.bookId());
+				default -> log.debug("Suggestion index ignoring {} event for book {}", event.type(), event.bookId());
+				}
+			} catch (Exception ex) {
+				log.error("❌ Failed to apply {} event for book {} to suggestion index", event.type(), event.bookId(),
+						ex);
+			}
+		}
+	}
+}
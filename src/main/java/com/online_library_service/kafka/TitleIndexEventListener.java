@@ -0,0 +1,41 @@
+package com.online_library_service.kafka;
+
+import com.online_library_service.dto.BookEvent;
+import com.online_library_service.search.TitleSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TitleIndexEventListener {
+
+	private final TitleSearchIndex titleSearchIndex;
+
+	// The writing node updates its own index after commit; this keeps every other instance's
+	// index in step, so a book added or renamed elsewhere is found by name here too.
+	@KafkaListener(topics = "${kafka.topics.book-events}", groupId = "book-title-${app.instance-id}",
+			containerFactory = "bookEventBatchFactory", properties = "auto.offset.reset=latest")
+	public void handleBookEvents(List<ConsumerRecord<String, BookEvent>> records) {
+		for (ConsumerRecord<String, BookEvent> record : records) {
+			BookEvent event = record.value();
+			if (event == null) {
+				continue;
+			}
+			try {
+				switch (event.type()) {
+				case BOOK_ADDED, BOOK_UPDATED -> titleSearchIndex.index(event.bookId(), event.title());
+				case BOOK_DELETED -> titleSearchIndex.remove(event.bookId());
+				default -> log.debug("Title index ignoring {} event for book {}", event.type(), event.bookId());
+				}
+			} catch (Exception ex) {
+				log.error("❌ Failed to apply {} event for book {} to title index", event.type(), event.bookId(), ex);
+			}
+		}
+	}
+}
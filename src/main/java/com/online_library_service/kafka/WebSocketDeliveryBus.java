@@ -0,0 +1,100 @@
+package com.online_library_service.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.online_library_service.Service.NotificationWebSocketHandler;
+import com.online_library_service.dto.WebSocketDelivery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Cluster-wide WebSocket delivery. Sessions only exist on the node the client connected
+ * to, so frames are published to the delivery topic and every instance consumes it in
+ * its own consumer group, handing each frame to its local session registry; nodes
+ * without a matching session simply skip it.
+ */
+@Component
+@Slf4j
+public class WebSocketDeliveryBus {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final NotificationWebSocketHandler notificationWebSocketHandler;
+    private final ObjectMapper objectMapper;
+    private final String topic;
+
+    private final Counter published;
+    private final Counter delivered;
+
+    public WebSocketDeliveryBus(@Qualifier("stringKafkaTemplate") KafkaTemplate<String, String> kafkaTemplate,
+            NotificationWebSocketHandler notificationWebSocketHandler, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry, @Value("${kafka.topics.ws-delivery}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.notificationWebSocketHandler = notificationWebSocketHandler;
+        this.objectMapper = objectMapper;
+        this.topic = topic;
+        this.published = Counter.builder("websocket.delivery.frames").tag("result", "published").register(meterRegistry);
+        this.delivered = Counter.builder("websocket.delivery.sessions").tag("result", "queued").register(meterRegistry);
+    }
+
+    /** Delivers {@code payload} to every session of {@code userId}, on whichever node holds them. */
+    public void sendToUser(Long userId, String payload) {
+        publish(String.valueOf(userId), new WebSocketDelivery(List.of(userId), null, null, payload));
+    }
+
+    /** Delivers {@code payload} to subscribed sessions on every node. */
+    public void broadcast(String category, String author, String payload) {
+        publish(null, new WebSocketDelivery(null, category, author, payload));
+    }
+
+    // Every instance needs every frame, so each one consumes in its own group. Frames for
+    // sessions that existed before this instance started are stale, so start at the end.
+    @KafkaListener(topics = "${kafka.topics.ws-delivery}", groupId = "ws-delivery-${app.instance-id}",
+            properties = { "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+                    "auto.offset.reset=latest" })
+    public void onDelivery(String message) {
+        WebSocketDelivery delivery;
+        try {
+            delivery = objectMapper.readValue(message, WebSocketDelivery.class);
+        } catch (JsonProcessingException e) {
+            log.error("❌ Dropping malformed WebSocket delivery: {}", e.getMessage());
+            return;
+        }
+        int queued = 0;
+        if (delivery.getUserIds() == null) {
+            queued = notificationWebSocketHandler.broadcast(delivery.getCategory(), delivery.getAuthor(),
+                    delivery.getPayload());
+        } else {
+            for (Long userId : delivery.getUserIds()) {
+                if (notificationWebSocketHandler.sendNotificationToUser(userId, delivery.getPayload())) {
+                    queued++;
+                }
+            }
+        }
+        delivered.increment(queued);
+    }
+
+    private void publish(String key, WebSocketDelivery delivery) {
+        String message;
+        try {
+            message = objectMapper.writeValueAsString(delivery);
+        } catch (JsonProcessingException e) {
+            log.error("❌ Failed to serialize WebSocket delivery", e);
+            return;
+        }
+        kafkaTemplate.send(topic, key, message).whenComplete((result, ex) -> {
+            if (ex == null) {
+                published.increment();
+            } else {
+                log.warn("⚠️ Failed to publish WebSocket delivery: {}", ex.getMessage());
+            }
+        });
+    }
+}
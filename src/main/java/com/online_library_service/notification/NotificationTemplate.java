@@ -0,0 +1,132 @@
+package com.online_library_service.notification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A notification template compiled once into alternating literal and parameter
+ * segments. Placeholders are written {@code {name}} or {@code {name|json}} (escaped
+ * for a JSON string), and doubled braces stand for literal ones.
+ * Placeholders are resolved to argument positions at compile time, so rendering is
+ * a single pass of appends with no parsing or map lookups.
+ */
+public final class NotificationTemplate {
+
+    private static final int MAX_RETAINED_CAPACITY = 8 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String[] literals;
+    private final int[] slots;
+    private final boolean[] json;
+    private final int literalLength;
+
+    private NotificationTemplate(String[] literals, int[] slots, boolean[] json) {
+        this.literals = literals;
+        this.slots = slots;
+        this.json = json;
+        this.literalLength = Arrays.stream(literals).mapToInt(String::length).sum();
+    }
+
+    /**
+     * Compiles {@code source} against the ordered parameter names a caller will pass to
+     * {@link #render}. Unknown placeholders fail here rather than at send time.
+     */
+    public static NotificationTemplate compile(String source, List<String> params) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> json = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if ((c == '{' || c == '}') && pos + 1 < source.length() && source.charAt(pos + 1) == c) {
+                literal.append(c);
+                pos += 2;
+                continue;
+            }
+            if (c == '}') {
+                throw new IllegalArgumentException("Unmatched '}' at " + pos + " in: " + source);
+            }
+            if (c != '{') {
+                literal.append(c);
+                pos++;
+                continue;
+            }
+            int close = source.indexOf('}', pos);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + pos + " in: " + source);
+            }
+            String placeholder = source.substring(pos + 1, close).trim();
+            boolean escapeJson = placeholder.endsWith("|json");
+            String name = escapeJson ? placeholder.substring(0, placeholder.length() - 5).trim() : placeholder;
+            int slot = params.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder {" + name + "}; expected one of " + params);
+            }
+            literals.add(literal.toString());
+            literal.setLength(0);
+            slots.add(slot);
+            json.add(escapeJson);
+            pos = close + 1;
+        }
+        literals.add(literal.toString());
+
+        boolean[] jsonFlags = new boolean[json.size()];
+        for (int i = 0; i < jsonFlags.length; i++) {
+            jsonFlags[i] = json.get(i);
+        }
+        return new NotificationTemplate(literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray(), jsonFlags);
+    }
+
+    /** Renders into the calling thread's reused buffer and returns the result. */
+    public String render(Object... args) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        appendTo(sb, args);
+        String out = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.remove();
+        }
+        return out;
+    }
+
+    public StringBuilder appendTo(StringBuilder sb, Object... args) {
+        sb.ensureCapacity(sb.length() + literalLength + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            String value = String.valueOf(args[slots[i]]);
+            if (json[i]) {
+                appendJsonEscaped(sb, value);
+            } else {
+                sb.append(value);
+            }
+        }
+        return sb.append(literals[slots.length]);
+    }
+
+    private static void appendJsonEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"' -> sb.append("\\\"");
+            case '\\' -> sb.append("\\\\");
+            case '\n' -> sb.append("\\n");
+            case '\r' -> sb.append("\\r");
+            case '\t' -> sb.append("\\t");
+            default -> {
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.online_library_service.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Loads and compiles every notification template at startup, failing fast on a
+ * missing template or an unknown placeholder.
+ */
+@Component
+@Slf4j
+public class NotificationTemplates {
+
+    static final String LOCATION = "notification-templates.properties";
+
+    private record Compiled(NotificationTemplate subject, NotificationTemplate body,
+            NotificationTemplate websocket) {
+    }
+
+    private final Map<NotificationType, Compiled> templates = new EnumMap<>(NotificationType.class);
+
+    public NotificationTemplates() {
+        this(load());
+    }
+
+    NotificationTemplates(Properties source) {
+        for (NotificationType type : NotificationType.values()) {
+            String ws = source.getProperty(type.getKey() + ".websocket");
+            templates.put(type, new Compiled(
+                    NotificationTemplate.compile(required(source, type, "subject"), type.getParams()),
+                    NotificationTemplate.compile(required(source, type, "body"), type.getParams()),
+                    ws != null ? NotificationTemplate.compile(ws, type.getParams()) : null));
+        }
+        log.info("Compiled notification templates for {} types", templates.size());
+    }
+
+    /** Renders subject, body and WebSocket frame; {@code args} follow {@link NotificationType#getParams()}. */
+    public RenderedNotification render(NotificationType type, Object... args) {
+        Compiled compiled = templates.get(type);
+        return new RenderedNotification(
+                compiled.subject().render(args),
+                compiled.body().render(args),
+                compiled.websocket() != null ? compiled.websocket().render(args) : null);
+    }
+
+    private static String required(Properties source, NotificationType type, String part) {
+        String value = source.getProperty(type.getKey() + "." + part);
+        if (value == null) {
+            throw new IllegalStateException("Missing notification template " + type.getKey() + "." + part);
+        }
+        return value;
+    }
+
+    private static Properties load() {
+        try {
+            return PropertiesLoaderUtils.loadProperties(new ClassPathResource(LOCATION));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load " + LOCATION, e);
+        }
+    }
+}
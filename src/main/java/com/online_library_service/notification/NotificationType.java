@@ -0,0 +1,39 @@
+package com.online_library_service.notification;
+
+import java.util.List;
+
+/**
+ * Every notification the service sends, with the ordered parameters its templates may
+ * reference. Templates live in {@code notification-templates.properties} under
+ * {@code <key>.subject}, {@code <key>.body} and optionally {@code <key>.websocket}.
+ */
+public enum NotificationType {
+
+    BOOK_ADDED("book-added", BookParams.NAMES),
+    BOOK_UPDATED("book-updated", BookParams.NAMES),
+    BOOK_STATUS_CHANGED("book-status-changed", BookParams.NAMES),
+    BOOK_DELETED("book-deleted", BookParams.NAMES),
+    WELCOME("welcome", List.of("name", "membershipEndDate")),
+    MEMBERSHIP_EXPIRED("membership-expired", List.of("name", "membershipEndDate"));
+
+    private final String key;
+    private final List<String> params;
+
+    NotificationType(String key, List<String> params) {
+        this.key = key;
+        this.params = params;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public List<String> getParams() {
+        return params;
+    }
+
+    /** Argument order for the book event types: title, author, category, status. */
+    private static final class BookParams {
+        static final List<String> NAMES = List.of("title", "author", "category", "status");
+    }
+}
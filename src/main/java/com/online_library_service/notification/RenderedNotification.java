@@ -0,0 +1,5 @@
+package com.online_library_service.notification;
+
+/** A notification rendered once; {@code websocket} is null when the type has no frame. */
+public record RenderedNotification(String subject, String body, String websocket) {
+}
@@ -0,0 +1,13 @@
+package com.online_library_service.report;
+
+import java.util.Comparator;
+
+/**
+ * Estimated borrow count for one book or user. The true count lies in
+ * {@code [count - error, count]}; exact results have an error of zero.
+ */
+public record HeavyHitter(long id, long count, long error) {
+
+    static final Comparator<HeavyHitter> BY_COUNT_DESC = Comparator.comparingLong(HeavyHitter::count).reversed()
+            .thenComparingLong(HeavyHitter::id);
+}
@@ -0,0 +1,153 @@
+package com.online_library_service.report;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitters sketch over long ids. Tracks at most {@code capacity}
+ * counters in an indexed min-heap; an untracked id evicts the smallest counter and
+ * inherits its count as error. Any id whose true count exceeds total / capacity is
+ * guaranteed to be tracked, and every estimate satisfies
+ * {@code count - error <= true count <= count}.
+ */
+class SpaceSavingSketch {
+
+    private final int capacity;
+    private final long[] ids;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Long, Integer> positions;
+    private int size;
+
+    SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.ids = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    void offer(long id, long increment) {
+        if (increment <= 0) {
+            return;
+        }
+        Integer pos = positions.get(id);
+        if (pos != null) {
+            counts[pos] += increment;
+            siftDown(pos);
+            return;
+        }
+        if (size < capacity) {
+            ids[size] = id;
+            counts[size] = increment;
+            errors[size] = 0;
+            positions.put(id, size);
+            siftUp(size++);
+            return;
+        }
+        positions.remove(ids[0]);
+        long floor = counts[0];
+        ids[0] = id;
+        errors[0] = floor;
+        counts[0] = floor + increment;
+        positions.put(id, 0);
+        siftDown(0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        positions.clear();
+        size = 0;
+    }
+
+    /** Upper bound on the count of any id this sketch is not tracking. */
+    long floor() {
+        return size == capacity ? counts[0] : 0;
+    }
+
+    /**
+     * Combines several sketches (for example one per day) into a single top-k. An id
+     * missing from a full sketch is charged that sketch's floor as both count and
+     * error, so the combined estimates keep the same upper-bound guarantee.
+     */
+    static List<HeavyHitter> top(List<SpaceSavingSketch> sketches, int k) {
+        if (sketches.size() == 1) {
+            return sketches.get(0).top(k);
+        }
+        long totalFloor = 0;
+        Map<Long, long[]> merged = new HashMap<>();
+        for (SpaceSavingSketch sketch : sketches) {
+            long floor = sketch.floor();
+            totalFloor += floor;
+            for (int i = 0; i < sketch.size; i++) {
+                long[] acc = merged.computeIfAbsent(sketch.ids[i], id -> new long[2]);
+                acc[0] += sketch.counts[i] - floor;
+                acc[1] += sketch.errors[i] - floor;
+            }
+        }
+        List<HeavyHitter> all = new ArrayList<>(merged.size());
+        for (Map.Entry<Long, long[]> e : merged.entrySet()) {
+            long[] acc = e.getValue();
+            all.add(new HeavyHitter(e.getKey(), acc[0] + totalFloor, acc[1] + totalFloor));
+        }
+        all.sort(HeavyHitter.BY_COUNT_DESC);
+        return all.size() > k ? List.copyOf(all.subList(0, k)) : all;
+    }
+
+    List<HeavyHitter> top(int k) {
+        List<HeavyHitter> all = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            all.add(new HeavyHitter(ids[i], counts[i], errors[i]));
+        }
+        all.sort(HeavyHitter.BY_COUNT_DESC);
+        return all.size() > k ? List.copyOf(all.subList(0, k)) : all;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[i] <= counts[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        positions.put(ids[a], a);
+        positions.put(ids[b], b);
+    }
+}
@@ -0,0 +1,153 @@
+package com.online_library_service.report;
+
+import com.online_library_service.entity.BorrowRollup;
+import com.online_library_service.enums.RollupDimension;
+import com.online_library_service.repository.BorrowRollupRepository;
+import com.online_library_service.repository.UserBookHistoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heavy-hitter sketches of borrows per book and per user, fed on every borrow. Each
+ * series keeps an all-time sketch plus a ring of daily sketches covering the last
+ * {@code windowDays} days, so top-k over any window answers in memory bounded by
+ * {@code capacity * (windowDays + 1)} counters.
+ */
+@Component
+@Slf4j
+public class TopBorrowTracker {
+
+    private final BorrowRollupRepository rollupRepository;
+    private final UserBookHistoryRepository historyRepository;
+    private final int capacity;
+    private final int windowDays;
+
+    private final Series books;
+    private final Series users;
+
+    public TopBorrowTracker(BorrowRollupRepository rollupRepository, UserBookHistoryRepository historyRepository,
+            @Value("${reports.top.capacity:1000}") int capacity,
+            @Value("${reports.top.window-days:30}") int windowDays) {
+        this.rollupRepository = rollupRepository;
+        this.historyRepository = historyRepository;
+        this.capacity = capacity;
+        this.windowDays = windowDays;
+        this.books = new Series(capacity, windowDays);
+        this.users = new Series(capacity, windowDays);
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        LocalDate since = today.minusDays(windowDays - 1L);
+
+        // The rollups are exact, so seeding with only the top `capacity` rows keeps the
+        // all-time sketches exact until live borrows start to evict counters.
+        PageRequest top = PageRequest.of(0, capacity);
+        List<BorrowRollup> bookRows = rollupRepository.findByDimensionOrderByBorrowCountDesc(RollupDimension.BOOK, top);
+        List<BorrowRollup> userRows = rollupRepository.findByDimensionOrderByBorrowCountDesc(RollupDimension.USER, top);
+        List<Object[]> bookDays = historyRepository.findDailyBookCountsSince(since);
+        List<Object[]> userDays = historyRepository.findDailyUserCountsSince(since);
+
+        synchronized (this) {
+            books.reset();
+            users.reset();
+            bookRows.forEach(r -> books.allTime.offer(Long.parseLong(r.getBucketKey()), r.getBorrowCount()));
+            userRows.forEach(r -> users.allTime.offer(Long.parseLong(r.getBucketKey()), r.getBorrowCount()));
+            for (Object[] r : bookDays) {
+                books.day((LocalDate) r[0]).offer((Long) r[1], ((Number) r[2]).longValue());
+            }
+            for (Object[] r : userDays) {
+                users.day((LocalDate) r[0]).offer((Long) r[1], ((Number) r[2]).longValue());
+            }
+        }
+        log.info("Top-borrow sketches seeded in {} ms ({} book-days, {} user-days)",
+                System.currentTimeMillis() - start, bookDays.size(), userDays.size());
+    }
+
+    public synchronized void recordBorrow(Long bookId, Long userId, LocalDate takenDate) {
+        books.record(bookId, takenDate);
+        users.record(userId, takenDate);
+    }
+
+    /** Top {@code k} books over the last {@code days} days, or all time when days is null. */
+    public synchronized List<HeavyHitter> topBooks(int k, Integer days) {
+        return books.top(k, days, LocalDate.now());
+    }
+
+    /** Top {@code k} users over the last {@code days} days, or all time when days is null. */
+    public synchronized List<HeavyHitter> topUsers(int k, Integer days) {
+        return users.top(k, days, LocalDate.now());
+    }
+
+    private static final class Series {
+
+        private final SpaceSavingSketch allTime;
+        private final SpaceSavingSketch[] daily;
+        private final long[] slotDays;
+
+        Series(int capacity, int windowDays) {
+            this.allTime = new SpaceSavingSketch(capacity);
+            this.daily = new SpaceSavingSketch[windowDays];
+            this.slotDays = new long[windowDays];
+            for (int i = 0; i < windowDays; i++) {
+                daily[i] = new SpaceSavingSketch(capacity);
+                slotDays[i] = Long.MIN_VALUE;
+            }
+        }
+
+        void reset() {
+            allTime.clear();
+            for (int i = 0; i < daily.length; i++) {
+                daily[i].clear();
+                slotDays[i] = Long.MIN_VALUE;
+            }
+        }
+
+        void record(Long id, LocalDate date) {
+            if (id == null) {
+                return;
+            }
+            allTime.offer(id, 1);
+            day(date).offer(id, 1);
+        }
+
+        /** The sketch for {@code date}, recycling the slot if it still holds an older day. */
+        SpaceSavingSketch day(LocalDate date) {
+            long epochDay = date.toEpochDay();
+            int slot = (int) Math.floorMod(epochDay, (long) daily.length);
+            if (slotDays[slot] != epochDay) {
+                daily[slot].clear();
+                slotDays[slot] = epochDay;
+            }
+            return daily[slot];
+        }
+
+        List<HeavyHitter> top(int k, Integer days, LocalDate today) {
+            if (days == null) {
+                return allTime.top(k);
+            }
+            long first = today.toEpochDay() - days + 1;
+            List<SpaceSavingSketch> window = new ArrayList<>(days);
+            for (int i = 0; i < daily.length; i++) {
+                if (slotDays[i] >= first && slotDays[i] <= today.toEpochDay() && daily[i].size() > 0) {
+                    window.add(daily[i]);
+                }
+            }
+            return window.isEmpty() ? List.of() : SpaceSavingSketch.top(window, k);
+        }
+    }
+}
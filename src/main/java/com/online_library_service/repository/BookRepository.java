@@ -4,7 +4,10 @@ import com.online_library_service.entity.Book;
 import com.online_library_service.enums.BookStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +25,19 @@ public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificat
     List<Book> findByStatusAndActiveTrue(BookStatus status);
 
     Optional<Book> findByIdAndActiveTrue(Long id);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Book b SET b.status = :to, b.updatedAt = LOCAL DATETIME " +
+           "WHERE b.id = :id AND b.status = :from AND b.active = true")
+    int transitionStatus(Long id, BookStatus from, BookStatus to);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Book b SET b.status = :to, b.updatedAt = LOCAL DATETIME " +
+           "WHERE b.id IN :ids AND b.status = :from AND b.active = true")
+    int transitionStatuses(Collection<Long> ids, BookStatus from, BookStatus to);
+
+    @Query(value = "UPDATE books SET status = 'TAKEN', updated_at = now() " +
+                   "WHERE id IN (:ids) AND status = 'AVAILABLE' AND active RETURNING id",
+           nativeQuery = true)
+    List<Long> claimAvailable(Collection<Long> ids);
 }
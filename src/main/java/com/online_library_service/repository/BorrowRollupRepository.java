@@ -0,0 +1,32 @@
+package com.online_library_service.repository;
+
+import com.online_library_service.entity.BorrowRollup;
+import com.online_library_service.enums.RollupDimension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BorrowRollupRepository extends JpaRepository<BorrowRollup, Long> {
+
+    Optional<BorrowRollup> findByDimensionAndBucketKey(RollupDimension dimension, String bucketKey);
+
+    List<BorrowRollup> findByDimensionOrderByBucketKeyDesc(RollupDimension dimension);
+
+    List<BorrowRollup> findByDimensionOrderByBorrowCountDesc(RollupDimension dimension);
+
+    List<BorrowRollup> findByDimensionOrderByBorrowCountDesc(RollupDimension dimension, Pageable pageable);
+
+    List<BorrowRollup> findByDimensionOrderByBucketDateDesc(RollupDimension dimension);
+
+    @Query("SELECT r.label, SUM(r.borrowCount) FROM BorrowRollup r " +
+           "WHERE r.dimension = com.online_library_service.enums.RollupDimension.CATEGORY_DAY " +
+           "AND r.bucketDate BETWEEN :start AND :end " +
+           "GROUP BY r.label ORDER BY SUM(r.borrowCount) DESC")
+    List<Object[]> findCategoryCountsInRange(LocalDate start, LocalDate end);
+}
@@ -0,0 +1,55 @@
+package com.online_library_service.repository;
+
+import com.online_library_service.entity.EmailOutbox;
+import com.online_library_service.enums.EmailStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    /**
+     * Leases up to {@code limit} due rows to the calling node. Rows another node is
+     * already claiming are skipped rather than waited on, and a lease that expires
+     * (the node died mid-send) makes the row claimable again.
+     */
+    @Query(value = "UPDATE email_outbox SET status = 'SENDING', attempts = attempts + 1, " +
+                   "lease_until = now() + make_interval(secs => :leaseSeconds) " +
+                   "WHERE id IN (SELECT id FROM email_outbox " +
+                   "WHERE (status = 'PENDING' AND next_attempt_at <= now()) " +
+                   "OR (status = 'SENDING' AND lease_until < now()) " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                   "RETURNING *",
+           nativeQuery = true)
+    List<EmailOutbox> claimBatch(int limit, int leaseSeconds);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE EmailOutbox e SET e.status = com.online_library_service.enums.EmailStatus.SENT, " +
+           "e.sentAt = :sentAt, e.leaseUntil = NULL, e.lastError = NULL WHERE e.id IN :ids")
+    int markSent(Collection<Long> ids, LocalDateTime sentAt);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.nextAttemptAt = :nextAttemptAt, " +
+           "e.leaseUntil = NULL, e.lastError = :error WHERE e.id = :id")
+    int markFailed(Long id, EmailStatus status, LocalDateTime nextAttemptAt, String error);
+
+    /**
+     * Deletes up to {@code limit} rows sent before {@code sentBefore} or given up on before
+     * {@code deadBefore}. Callers loop until a short batch so no single delete holds locks for long.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM email_outbox WHERE id IN (SELECT id FROM email_outbox " +
+                   "WHERE (status = 'SENT' AND sent_at < :sentBefore) " +
+                   "OR (status = 'DEAD' AND next_attempt_at < :deadBefore) " +
+                   "LIMIT :limit FOR UPDATE SKIP LOCKED)",
+           nativeQuery = true)
+    int deleteFinishedBefore(LocalDateTime sentBefore, LocalDateTime deadBefore, int limit);
+
+    long countByStatus(EmailStatus status);
+}
@@ -0,0 +1,40 @@
+package com.online_library_service.repository;
+
+import com.online_library_service.entity.EventOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EventOutboxRepository extends JpaRepository<EventOutbox, Long> {
+
+    /** Shared with batched JDBC appends, which bind the same named parameters. */
+    String APPEND = "INSERT INTO event_outbox (tx_id, topic, event_key, payload, created_at) " +
+                    "VALUES (txid_current(), :topic, :eventKey, :payload, now())";
+
+    /** Appends a record stamped with the current transaction's id; must run inside the caller's transaction. */
+    @Modifying
+    @Query(value = APPEND, nativeQuery = true)
+    int append(String topic, String eventKey, byte[] payload);
+
+    /**
+     * Rows past the cursor whose transaction finished before every transaction still
+     * running. A transaction that is still open can only commit rows with a larger
+     * {@code tx_id}, so no row ever appears behind a cursor that has moved past it.
+     */
+    @Query(value = "SELECT * FROM event_outbox " +
+                   "WHERE (tx_id, id) > (:lastTxId, :lastId) " +
+                   "AND tx_id < txid_snapshot_xmin(txid_current_snapshot()) " +
+                   "ORDER BY tx_id, id LIMIT :limit",
+           nativeQuery = true)
+    List<EventOutbox> findPublishable(long lastTxId, long lastId, int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM event_outbox WHERE (tx_id, id) <= (:lastTxId, :lastId) " +
+                   "AND created_at < now() - make_interval(secs => :retentionSeconds)",
+           nativeQuery = true)
+    int deletePublishedBefore(long lastTxId, long lastId, long retentionSeconds);
+}
@@ -0,0 +1,40 @@
+package com.online_library_service.repository;
+
+import com.online_library_service.entity.OutboxCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface OutboxCursorRepository extends JpaRepository<OutboxCursor, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO outbox_cursor (name, last_tx_id, last_id, updated_at) VALUES (:name, 0, 0, now()) " +
+                   "ON CONFLICT (name) DO NOTHING",
+           nativeQuery = true)
+    int createIfMissing(String name);
+
+    /**
+     * Leases the cursor to {@code owner} for {@code leaseSeconds}, or returns empty while
+     * another node holds an unexpired lease. The holder renews it on every poll, and a
+     * lease left by a node that died expires so another node takes over.
+     */
+    @Query(value = "UPDATE outbox_cursor SET lease_owner = :owner, " +
+                   "lease_until = now() + make_interval(secs => :leaseSeconds) " +
+                   "WHERE name IN (SELECT name FROM outbox_cursor WHERE name = :name " +
+                   "AND (lease_owner IS NULL OR lease_owner = :owner OR lease_until < now()) " +
+                   "FOR UPDATE SKIP LOCKED) " +
+                   "RETURNING *",
+           nativeQuery = true)
+    Optional<OutboxCursor> tryLease(String name, String owner, int leaseSeconds);
+
+    /** Moves the cursor only while {@code owner} still holds the lease; returns 0 once it has been taken over. */
+    @Modifying
+    @Query(value = "UPDATE outbox_cursor SET last_tx_id = :lastTxId, last_id = :lastId, updated_at = now() " +
+                   "WHERE name = :name AND lease_owner = :owner",
+           nativeQuery = true)
+    int advance(String name, String owner, long lastTxId, long lastId);
+}
@@ -1,11 +1,15 @@
 package com.online_library_service.repository;
 
+import com.online_library_service.dto.PendingRollup;
 import com.online_library_service.entity.UserBookHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,51 +17,53 @@ public interface UserBookHistoryRepository extends JpaRepository<UserBookHistory
 
     List<UserBookHistory> findByUserId(Long userId);
 
-    @Query("SELECT h.book.category, COUNT(h) " +
-           "FROM UserBookHistory h GROUP BY h.book.category ORDER BY COUNT(h) DESC")
-    List<Object[]> findCategoryCounts();
-
-    @Query("SELECT COUNT(h) FROM UserBookHistory h")
-    long findTotalBorrows();
-
-    @Query("SELECT h.takenDate, COUNT(h) " +
-           "FROM UserBookHistory h GROUP BY h.takenDate ORDER BY h.takenDate DESC")
-    List<Object[]> findDailyBorrows();
-
-    @Query("SELECT FUNCTION('YEAR', h.takenDate), FUNCTION('MONTH', h.takenDate), COUNT(h) " +
-           "FROM UserBookHistory h " +
-           "GROUP BY FUNCTION('YEAR', h.takenDate), FUNCTION('MONTH', h.takenDate) " +
-           "ORDER BY FUNCTION('YEAR', h.takenDate) DESC, FUNCTION('MONTH', h.takenDate) DESC")
-    List<Object[]> findMonthlyBorrows();
-
-    @Query("SELECT FUNCTION('YEAR', h.takenDate), COUNT(h) " +
-           "FROM UserBookHistory h " +
-           "GROUP BY FUNCTION('YEAR', h.takenDate) " +
-           "ORDER BY FUNCTION('YEAR', h.takenDate) DESC")
-    List<Object[]> findYearlyBorrows();
-
-    @Query("SELECT h.book.title, COUNT(h) " +
-           "FROM UserBookHistory h GROUP BY h.book.title ORDER BY COUNT(h) DESC")
-    List<Object[]> findTopBorrowedBooks();
-
-    @Query("SELECT h.user.name, COUNT(h) " +
-           "FROM UserBookHistory h GROUP BY h.user.name ORDER BY COUNT(h) DESC")
-    List<Object[]> findTopActiveUsers();
-
     @Query("SELECT h FROM UserBookHistory h WHERE h.returnedDate IS NULL")
     List<UserBookHistory> findCurrentlyBorrowed();
 
-    @Query("SELECT h.book.category, COUNT(h) " +
-           "FROM UserBookHistory h WHERE h.takenDate BETWEEN :start AND :end " +
-           "GROUP BY h.book.category ORDER BY COUNT(h) DESC")
-    List<Object[]> findCategoryCountsInRange(LocalDate start, LocalDate end);
-
     List<UserBookHistory> findByDueDateBeforeAndReturnedDateIsNull(LocalDate date);
 
-    @Query("SELECT COUNT(h) FROM UserBookHistory h WHERE h.user.id = :userId")
-    long findUserTotalBorrows(Long userId);
-
-    @Query("SELECT h.book.title, h.takenDate, COUNT(h) " +
-           "FROM UserBookHistory h GROUP BY h.book.title, h.takenDate ORDER BY h.takenDate DESC")
-    List<Object[]> findBookBorrowTrends();
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE UserBookHistory h SET h.returnedDate = :returnedDate, h.updatedAt = LOCAL DATETIME " +
+           "WHERE h.id = :id AND h.returnedDate IS NULL")
+    int markReturned(Long id, LocalDate returnedDate);
+
+    @Query(value = "UPDATE user_book_history h SET returned_date = :returnedDate, updated_at = now() " +
+                   "FROM books b WHERE b.id = h.book_id AND b.active " +
+                   "AND h.id IN (:ids) AND h.user_id = :userId AND h.returned_date IS NULL " +
+                   "RETURNING h.id, h.book_id",
+           nativeQuery = true)
+    List<Object[]> markReturnedForUser(Collection<Long> ids, Long userId, LocalDate returnedDate);
+
+    /**
+     * Clears the pending flag on up to {@code limit} borrows not yet folded into the rollups and
+     * returns them with the labels the rollups need. Rows claimed by a concurrent aggregator are skipped.
+     */
+    @Query(value = "WITH claimed AS (" +
+                   "UPDATE user_book_history SET rollup_pending = false WHERE id IN (" +
+                   "SELECT id FROM user_book_history WHERE rollup_pending ORDER BY id LIMIT :limit " +
+                   "FOR UPDATE SKIP LOCKED) RETURNING user_id, book_id, taken_date) " +
+                   "SELECT c.user_id AS userId, u.name AS userName, c.book_id AS bookId, b.title AS title, " +
+                   "b.category AS category, c.taken_date AS takenDate " +
+                   "FROM claimed c JOIN users u ON u.id = c.user_id JOIN books b ON b.id = c.book_id",
+           nativeQuery = true)
+    List<PendingRollup> claimPendingRollups(int limit);
+
+    @Query("SELECT h.book.id, COUNT(h) FROM UserBookHistory h GROUP BY h.book.id")
+    List<Object[]> findBorrowCountsByBook();
+
+    @Query("SELECT h.takenDate, h.book.id, COUNT(h) FROM UserBookHistory h " +
+           "WHERE h.takenDate >= :since GROUP BY h.takenDate, h.book.id")
+    List<Object[]> findDailyBookCountsSince(LocalDate since);
+
+    @Query("SELECT h.takenDate, h.user.id, COUNT(h) FROM UserBookHistory h " +
+           "WHERE h.takenDate >= :since GROUP BY h.takenDate, h.user.id")
+    List<Object[]> findDailyUserCountsSince(LocalDate since);
+
+    @Query("SELECT h.book.id, h.book.title, COUNT(h) FROM UserBookHistory h " +
+           "WHERE h.takenDate >= :since GROUP BY h.book.id, h.book.title ORDER BY COUNT(h) DESC")
+    List<Object[]> findTopBooksSince(LocalDate since, Pageable pageable);
+
+    @Query("SELECT h.user.id, h.user.name, COUNT(h) FROM UserBookHistory h " +
+           "WHERE h.takenDate >= :since GROUP BY h.user.id, h.user.name ORDER BY COUNT(h) DESC")
+    List<Object[]> findTopUsersSince(LocalDate since, Pageable pageable);
 }
@@ -1,13 +1,22 @@
 package com.online_library_service.repository;
 
+import com.online_library_service.dto.ExpiredMember;
+import com.online_library_service.dto.UserContact;
+import com.online_library_service.dto.UserDto;
 import com.online_library_service.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -16,7 +25,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Page<User> findByActiveTrue(Pageable pageable);
 
-    List<User> findByActiveTrue();
-
     Optional<User> findByEmailAndActiveTrue(String email);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.online_library_service.dto.UserContact(u.id, u.email) FROM User u " +
+           "WHERE u.active = true AND u.id > :afterId ORDER BY u.id")
+    List<UserContact> findActiveContactsAfter(Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.online_library_service.dto.UserDto(u.id, u.name, u.email, u.role, " +
+           "u.membershipStartDate, u.membershipEndDate) FROM User u " +
+           "WHERE u.active = true AND u.id > :afterId ORDER BY u.id")
+    List<UserDto> findActiveUsersAfter(Long afterId, Pageable pageable);
+
+    /** All active users in id order, fetched in batches; must be consumed inside a transaction. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.online_library_service.dto.UserDto(u.id, u.name, u.email, u.role, " +
+           "u.membershipStartDate, u.membershipEndDate) FROM User u WHERE u.active = true ORDER BY u.id")
+    Stream<UserDto> streamActiveUsers();
+
+    /**
+     * Deactivates up to {@code limit} members whose membership ended before {@code today}
+     * and returns them. Rows locked by another worker are skipped, so several workers
+     * can drain the backlog side by side; must run inside a transaction.
+     */
+    @Query(value = "UPDATE users SET active = false, updated_at = now() WHERE id IN (" +
+                   "SELECT id FROM users WHERE active AND membership_end_date < :today " +
+                   "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+                   "RETURNING id, email, name, membership_end_date AS \"membershipEndDate\"",
+           nativeQuery = true)
+    List<ExpiredMember> expireLapsedMembers(LocalDate today, int limit);
+}
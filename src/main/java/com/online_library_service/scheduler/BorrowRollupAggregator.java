@@ -0,0 +1,92 @@
+package com.online_library_service.scheduler;
+
+import com.online_library_service.Service.BorrowRollupService;
+import com.online_library_service.dto.PendingRollup;
+import com.online_library_service.repository.UserBookHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Folds committed borrows into {@code borrow_rollups}. Borrow transactions only insert
+ * history rows flagged as pending; each batch here claims pending rows with
+ * {@code SKIP LOCKED}, clears the flag and upserts the rollup deltas in one transaction,
+ * so the hot TOTAL and today's DAY/MONTH/YEAR rows are written once per batch instead of
+ * once per borrow. A failed batch rolls back and its rows stay pending for the next poll.
+ */
+@Component
+@Slf4j
+public class BorrowRollupAggregator {
+
+    private final UserBookHistoryRepository historyRepository;
+    private final BorrowRollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final int batchSize;
+
+    private final Counter aggregated;
+    private final Counter failedBatches;
+
+    public BorrowRollupAggregator(UserBookHistoryRepository historyRepository, BorrowRollupService rollupService,
+            TransactionTemplate transactionTemplate, CacheManager cacheManager, MeterRegistry meterRegistry,
+            @Value("${reports.rollup.batch-size:1000}") int batchSize) {
+        this.historyRepository = historyRepository;
+        this.rollupService = rollupService;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.batchSize = batchSize;
+        this.aggregated = Counter.builder("reports.rollup.aggregated").register(meterRegistry);
+        this.failedBatches = Counter.builder("reports.rollup.failed.batches").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${reports.rollup.poll-interval:2000}")
+    public void aggregate() {
+        int total = 0;
+        try {
+            int applied;
+            do {
+                applied = aggregateBatch();
+                total += applied;
+            } while (applied == batchSize);
+        } catch (RuntimeException ex) {
+            failedBatches.increment();
+            log.warn("⚠️ Borrow rollup aggregation failed, pending borrows will be retried: {}", ex.getMessage());
+        }
+        if (total > 0) {
+            evictTopCategories();
+        }
+    }
+
+    /** Applies one batch of pending borrows to the rollups; returns the number of borrows applied. */
+    int aggregateBatch() {
+        Integer applied = transactionTemplate.execute(status -> {
+            List<PendingRollup> borrows = historyRepository.claimPendingRollups(batchSize);
+            rollupService.applyBorrows(borrows);
+            return borrows.size();
+        });
+        int count = applied == null ? 0 : applied;
+        aggregated.increment(count);
+        return count;
+    }
+
+    private void evictTopCategories() {
+        Cache cache = cacheManager.getCache("reports");
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.evict("topCategories");
+        } catch (DataAccessException ex) {
+            log.warn("Failed to evict cached top categories: {}", ex.getMessage());
+        }
+    }
+}
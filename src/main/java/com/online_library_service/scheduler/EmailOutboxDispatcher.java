@@ -0,0 +1,199 @@
+package com.online_library_service.scheduler;
+
+import com.online_library_service.Service.NotificationService;
+import com.online_library_service.entity.EmailOutbox;
+import com.online_library_service.enums.EmailStatus;
+import com.online_library_service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Drains the email outbox. Each poll leases a batch of due rows, splits it across up
+ * to {@code transports} concurrent SMTP connections (each connection sends its whole
+ * share before closing), then records every row as sent, rescheduled with exponential
+ * backoff, or dead once {@code maxAttempts} is used up.
+ */
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+    private final int batchSize;
+    private final int transports;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final int leaseSeconds;
+    private final Duration sentRetention;
+    private final Duration deadRetention;
+    private final int purgeBatchSize;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository, NotificationService notificationService,
+            TransactionTemplate transactionTemplate, @Qualifier("taskExecutor") Executor taskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.outbox.batch-size:500}") int batchSize,
+            @Value("${notifications.outbox.transports:4}") int transports,
+            @Value("${notifications.outbox.max-attempts:6}") int maxAttempts,
+            @Value("${notifications.outbox.base-backoff:30s}") Duration baseBackoff,
+            @Value("${notifications.outbox.max-backoff:1h}") Duration maxBackoff,
+            @Value("${notifications.outbox.lease:5m}") Duration lease,
+            @Value("${notifications.outbox.sent-retention:7d}") Duration sentRetention,
+            @Value("${notifications.outbox.dead-retention:30d}") Duration deadRetention,
+            @Value("${notifications.outbox.purge-batch-size:5000}") int purgeBatchSize) {
+        this.outboxRepository = outboxRepository;
+        this.notificationService = notificationService;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+        this.batchSize = batchSize;
+        this.transports = transports;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = baseBackoff;
+        this.maxBackoff = maxBackoff;
+        this.leaseSeconds = (int) lease.toSeconds();
+        this.sentRetention = sentRetention;
+        this.deadRetention = deadRetention;
+        this.purgeBatchSize = purgeBatchSize;
+
+        this.sent = Counter.builder("notifications.outbox.messages").tag("result", "sent").register(meterRegistry);
+        this.retried = Counter.builder("notifications.outbox.messages").tag("result", "retried").register(meterRegistry);
+        this.dead = Counter.builder("notifications.outbox.messages").tag("result", "dead").register(meterRegistry);
+        Gauge.builder("notifications.outbox.pending", outboxRepository, r -> r.countByStatus(EmailStatus.PENDING))
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-interval:1000}")
+    public void drain() {
+        List<EmailOutbox> batch;
+        do {
+            batch = transactionTemplate.execute(status -> outboxRepository.claimBatch(batchSize, leaseSeconds));
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            dispatch(batch);
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Deletes sent rows older than {@code notifications.outbox.sent-retention} and dead rows
+     * older than {@code notifications.outbox.dead-retention}, one short transaction per batch.
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.cleanup-interval:3600000}")
+    public void purgeFinished() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime sentBefore = now.minus(sentRetention);
+        LocalDateTime deadBefore = now.minus(deadRetention);
+        int total = 0;
+        int deleted;
+        do {
+            Integer batch = transactionTemplate.execute(
+                    status -> outboxRepository.deleteFinishedBefore(sentBefore, deadBefore, purgeBatchSize));
+            deleted = batch == null ? 0 : batch;
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        if (total > 0) {
+            log.info("Purged {} sent or dead outbox emails", total);
+        }
+    }
+
+    /** Sends an already-leased batch and records the outcome of every row. */
+    void dispatch(List<EmailOutbox> batch) {
+        int connections = Math.min(transports, batch.size());
+        int share = (batch.size() + connections - 1) / connections;
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>(connections);
+        for (int from = 0; from < batch.size(); from += share) {
+            List<EmailOutbox> rows = batch.subList(from, Math.min(from + share, batch.size()));
+            sends.add(CompletableFuture.runAsync(() -> sendOverOneConnection(rows), taskExecutor));
+        }
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private void sendOverOneConnection(List<EmailOutbox> rows) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            EmailOutbox row = rows.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(row.getRecipients().split(","));
+            message.setSubject(row.getSubject());
+            message.setText(row.getBody());
+            messages[i] = message;
+        }
+
+        Map<SimpleMailMessage, Exception> failures = notificationService.deliver(messages);
+
+        List<Long> sentIds = new ArrayList<>(rows.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < rows.size(); i++) {
+            EmailOutbox row = rows.get(i);
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                sentIds.add(row.getId());
+            } else {
+                recordFailure(row, failure, now);
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.markSent(sentIds, now));
+            sent.increment(sentIds.size());
+        }
+        log.debug("Outbox connection sent {} of {} messages", sentIds.size(), rows.size());
+    }
+
+    private void recordFailure(EmailOutbox row, Exception failure, LocalDateTime now) {
+        String error = truncate(failure.getMessage());
+        if (row.getAttempts() >= maxAttempts) {
+            transactionTemplate.executeWithoutResult(
+                    status -> outboxRepository.markFailed(row.getId(), EmailStatus.DEAD, now, error));
+            dead.increment();
+            log.error("❌ Giving up on outbox email {} to {} after {} attempts: {}", row.getId(),
+                    row.getRecipients(), row.getAttempts(), error);
+            return;
+        }
+        LocalDateTime next = now.plus(backoff(row.getAttempts()));
+        transactionTemplate.executeWithoutResult(
+                status -> outboxRepository.markFailed(row.getId(), EmailStatus.PENDING, next, error));
+        retried.increment();
+        log.warn("⚠️ Outbox email {} failed on attempt {}, retrying at {}: {}", row.getId(), row.getAttempts(), next,
+                error);
+    }
+
+    /** {@code baseBackoff * 2^(attempts - 1)}, capped at {@code maxBackoff}. */
+    Duration backoff(int attempts) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 20);
+        Duration delay = baseBackoff.multipliedBy(1L << shift);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
@@ -0,0 +1,142 @@
+package com.online_library_service.scheduler;
+
+import com.online_library_service.entity.EventOutbox;
+import com.online_library_service.repository.EventOutboxRepository;
+import com.online_library_service.repository.OutboxCursorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the event outbox to Kafka. Each poll leases the cursor (a node that finds
+ * it leased elsewhere skips the poll, so only one node relays at a time) and reads the
+ * next committed rows in {@code (txId, id)} order in one short transaction, sends them
+ * keyed by aggregate id outside any transaction, and advances the cursor in a second
+ * one once every ack is in. The lease outlives the send timeout, so no other node
+ * starts relaying while a batch is in flight. A failed send or a crash leaves the
+ * cursor where it was and the batch is sent again, so delivery is at least once and
+ * in order per key.
+ */
+@Component
+@Slf4j
+public class EventOutboxRelay {
+
+    static final String CURSOR = "kafka-relay";
+
+    private final EventOutboxRepository outboxRepository;
+    private final OutboxCursorRepository cursorRepository;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration retention;
+    private final String owner;
+    private final int leaseSeconds;
+
+    private final Counter published;
+    private final Counter failedBatches;
+
+    public EventOutboxRelay(EventOutboxRepository outboxRepository, OutboxCursorRepository cursorRepository,
+            @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, byte[]> kafkaTemplate,
+            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${events.outbox.batch-size:500}") int batchSize,
+            @Value("${events.outbox.send-timeout:30s}") Duration sendTimeout,
+            @Value("${events.outbox.retention:1d}") Duration retention,
+            @Value("${events.outbox.lease:2m}") Duration lease,
+            @Value("${app.instance-id:local}") String instanceId) {
+        this.outboxRepository = outboxRepository;
+        this.cursorRepository = cursorRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.retention = retention;
+        this.owner = instanceId + "-" + UUID.randomUUID();
+        this.leaseSeconds = (int) Math.max(lease.toSeconds(), sendTimeout.toSeconds() + 1);
+        this.published = Counter.builder("events.outbox.published").register(meterRegistry);
+        this.failedBatches = Counter.builder("events.outbox.failed.batches").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createCursor() {
+        transactionTemplate.executeWithoutResult(status -> cursorRepository.createIfMissing(CURSOR));
+    }
+
+    @Scheduled(fixedDelayString = "${events.outbox.poll-interval:200}")
+    public void relay() {
+        try {
+            int sent;
+            do {
+                sent = relayBatch();
+            } while (sent == batchSize);
+        } catch (RuntimeException ex) {
+            failedBatches.increment();
+            log.warn("⚠️ Event outbox relay failed, will retry from the last cursor: {}", ex.getMessage());
+        }
+    }
+
+    /** Publishes one batch and advances the cursor past it; returns the number of rows sent. */
+    int relayBatch() {
+        List<EventOutbox> rows = transactionTemplate.execute(status -> cursorRepository
+                .tryLease(CURSOR, owner, leaseSeconds)
+                .map(cursor -> outboxRepository.findPublishable(cursor.getLastTxId(), cursor.getLastId(), batchSize))
+                .orElse(List.of()));
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        publish(rows);
+        EventOutbox last = rows.get(rows.size() - 1);
+        Integer advanced = transactionTemplate.execute(
+                status -> cursorRepository.advance(CURSOR, owner, last.getTxId(), last.getId()));
+        if (advanced == null || advanced == 0) {
+            log.warn("⚠️ Outbox relay lease lapsed before the cursor moved, batch of {} will be sent again",
+                    rows.size());
+            return 0;
+        }
+        published.increment(rows.size());
+        return rows.size();
+    }
+
+    private void publish(List<EventOutbox> rows) {
+        List<CompletableFuture<?>> sends = new ArrayList<>(rows.size());
+        for (EventOutbox row : rows) {
+            sends.add(kafkaTemplate.send(row.getTopic(), row.getEventKey(), row.getPayload()));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture<?>[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing outbox batch", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Outbox batch of " + rows.size() + " not acknowledged", e);
+        }
+    }
+
+    /** Drops rows the relay has passed once they are older than {@code events.outbox.retention}. */
+    @Scheduled(fixedDelayString = "${events.outbox.cleanup-interval:3600000}")
+    public void purgePublished() {
+        Integer deleted = transactionTemplate.execute(status -> cursorRepository.findById(CURSOR)
+                .map(cursor -> outboxRepository.deletePublishedBefore(cursor.getLastTxId(), cursor.getLastId(),
+                        retention.toSeconds()))
+                .orElse(0));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} published outbox events", deleted);
+        }
+    }
+}
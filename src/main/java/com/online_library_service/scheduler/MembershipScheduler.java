@@ -1,53 +1,128 @@
 package com.online_library_service.scheduler;
 
-import com.online_library_service.entity.User;
+import com.online_library_service.dto.ExpiredMember;
+import com.online_library_service.dto.UserExpiryEvent;
 import com.online_library_service.kafka.MembershipEventProducer;
 import com.online_library_service.repository.UserRepository;
-import com.online_library_service.dto.UserExpiryEvent;
-import lombok.RequiredArgsConstructor;
+import com.online_library_service.security.UserStatusCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Deactivates lapsed memberships in chunks. Each chunk is one short transaction that
+ * flips up to {@code chunk-size} users with a single {@code UPDATE ... RETURNING} and
+ * queues their expiry events with one batched insert, so nothing is loaded into a
+ * persistence context. {@code workers} chunk loops run side by side, each skipping rows
+ * the others hold. A committed chunk is never redone: a run that stops part way is
+ * resumed by the next one, which only sees users still active.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class MembershipScheduler {
 
     private final UserRepository userRepository;
     private final MembershipEventProducer eventProducer;
+    private final UserStatusCache userStatusCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor taskExecutor;
+    private final int chunkSize;
+    private final int workers;
+
+    private final Timer runTimer;
+    private final Timer chunkTimer;
+    private final Counter expiredUsers;
+
+    public MembershipScheduler(UserRepository userRepository, MembershipEventProducer eventProducer,
+            UserStatusCache userStatusCache, TransactionTemplate transactionTemplate, @Qualifier("taskExecutor") Executor taskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${membership.expiry.chunk-size:1000}") int chunkSize,
+            @Value("${membership.expiry.workers:4}") int workers) {
+        this.userRepository = userRepository;
+        this.eventProducer = eventProducer;
+        this.userStatusCache = userStatusCache;
+        this.transactionTemplate = transactionTemplate;
+        this.taskExecutor = taskExecutor;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+        this.runTimer = Timer.builder("membership.expiry.run.duration").register(meterRegistry);
+        this.chunkTimer = Timer.builder("membership.expiry.chunk.duration").register(meterRegistry);
+        this.expiredUsers = Counter.builder("membership.expiry.users").register(meterRegistry);
+    }
 
     @Scheduled(cron = "0 0 0 * * ?")
-    @Transactional
     public void checkExpiredMemberships() {
         log.info("Running membership expiration check...");
         LocalDate today = LocalDate.now();
+        AtomicInteger expired = new AtomicInteger();
+        AtomicInteger chunks = new AtomicInteger();
+        long start = System.nanoTime();
 
-        List<User> activeUsers = userRepository.findByActiveTrue();
-        int expiredCount = 0;
-
-        for (User user : activeUsers) {
-            if (user.getMembershipEndDate() != null && user.getMembershipEndDate().isBefore(today)) {
-                user.setActive(false);
-                expiredCount++;
+        List<CompletableFuture<Void>> loops = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            loops.add(CompletableFuture.runAsync(() -> {
+                int count;
+                do {
+                    count = expireChunk(today);
+                    expired.addAndGet(count);
+                    chunks.incrementAndGet();
+                } while (count == chunkSize);
+            }, taskExecutor));
+        }
+        try {
+            CompletableFuture.allOf(loops.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException ex) {
+            log.error("❌ Membership expiry stopped after {} users; the next run resumes from there", expired.get(),
+                    ex.getCause());
+        }
 
-                userRepository.save(user);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        runTimer.record(Duration.ofMillis(elapsedMs));
+        log.info("MembershipScheduler finished. Deactivated {} users in {} chunks, {} ms.", expired.get(),
+                chunks.get(), elapsedMs);
+    }
 
-                UserExpiryEvent event = new UserExpiryEvent(
-                    user.getId(),
-                    user.getEmail(),
-                    user.getName(),
-                    user.getMembershipEndDate(),
-                    "MEMBERSHIP_EXPIRED"
-                );
-                eventProducer.publishExpiryEvent(event);
+    /**
+     * Expires one chunk in its own transaction and, once it has committed, evicts the
+     * cached status of each user so their tokens stop working; returns the number of
+     * users deactivated.
+     */
+    int expireChunk(LocalDate today) {
+        List<Long> userIds = chunkTimer.record(() -> transactionTemplate.execute(status -> {
+            List<ExpiredMember> members = userRepository.expireLapsedMembers(today, chunkSize);
+            if (members.isEmpty()) {
+                return List.<Long>of();
             }
+            List<UserExpiryEvent> events = new ArrayList<>(members.size());
+            List<Long> ids = new ArrayList<>(members.size());
+            for (ExpiredMember member : members) {
+                events.add(new UserExpiryEvent(member.getId(), member.getEmail(), member.getName(),
+                        member.getMembershipEndDate(), "MEMBERSHIP_EXPIRED"));
+                ids.add(member.getId());
+            }
+            eventProducer.publishExpiryEvents(events);
+            return ids;
+        }));
+        if (userIds == null) {
+            return 0;
         }
-
-        log.info("MembershipScheduler finished. Deactivated {} users.", expiredCount);
+        userStatusCache.evictAll(userIds);
+        expiredUsers.increment(userIds.size());
+        return userIds.size();
     }
 }
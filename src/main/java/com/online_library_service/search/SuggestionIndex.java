@@ -0,0 +1,136 @@
+package com.online_library_service.search;
+
+import com.online_library_service.dto.SuggestionDto;
+import com.online_library_service.entity.Book;
+import com.online_library_service.enums.SuggestionType;
+import com.online_library_service.repository.BookRepository;
+import com.online_library_service.repository.UserBookHistoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead index over titles, authors and categories of active books. A term's
+ * weight is the sum over its books of (borrow count + 1), so popular titles and
+ * prolific authors rank first.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestionIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final BookRepository bookRepository;
+    private final UserBookHistoryRepository historyRepository;
+
+    private final SuggestionTrie trie = new SuggestionTrie(MAX_SUGGESTIONS);
+    private final Map<Long, IndexedBook> books = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private record IndexedBook(String title, String author, String category, long weight) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> borrowCounts = new HashMap<>();
+        for (Object[] r : historyRepository.findBorrowCountsByBook()) {
+            borrowCounts.put((Long) r[0], ((Number) r[1]).longValue());
+        }
+        List<Book> activeBooks = bookRepository.findByActiveTrue();
+
+        lock.writeLock().lock();
+        try {
+            for (Book book : activeBooks) {
+                long weight = borrowCounts.getOrDefault(book.getId(), 0L) + 1;
+                putLocked(book.getId(), new IndexedBook(book.getTitle(), book.getAuthor(), book.getCategory(), weight));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Suggestion index built with {} books and {} terms in {} ms",
+                activeBooks.size(), trie.size(), System.currentTimeMillis() - start);
+    }
+
+    /** Returns up to {@code limit} suggestions, with {@code limit} clamped to {@code [1, MAX_SUGGESTIONS]}. */
+    public List<SuggestionDto> suggest(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return trie.suggest(query, Math.max(1, Math.min(limit, MAX_SUGGESTIONS))).stream()
+                    .map(e -> new SuggestionDto(e.text, e.type, e.weight))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void upsert(Long bookId, String title, String author, String category) {
+        if (bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            IndexedBook previous = books.get(bookId);
+            long weight = previous != null ? previous.weight() : 1;
+            putLocked(bookId, new IndexedBook(title, author, category, weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook previous = books.remove(bookId);
+            if (previous != null) {
+                unindex(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordBorrow(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            IndexedBook book = books.get(bookId);
+            if (book == null) {
+                return;
+            }
+            books.put(bookId, new IndexedBook(book.title(), book.author(), book.category(), book.weight() + 1));
+            trie.addWeight(book.title(), SuggestionType.TITLE, 1);
+            trie.addWeight(book.author(), SuggestionType.AUTHOR, 1);
+            trie.addWeight(book.category(), SuggestionType.CATEGORY, 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(Long bookId, IndexedBook book) {
+        IndexedBook previous = books.put(bookId, book);
+        if (previous != null) {
+            unindex(previous);
+        }
+        trie.add(book.title(), SuggestionType.TITLE, book.weight());
+        trie.add(book.author(), SuggestionType.AUTHOR, book.weight());
+        trie.add(book.category(), SuggestionType.CATEGORY, book.weight());
+    }
+
+    private void unindex(IndexedBook book) {
+        trie.remove(book.title(), SuggestionType.TITLE, book.weight());
+        trie.remove(book.author(), SuggestionType.AUTHOR, book.weight());
+        trie.remove(book.category(), SuggestionType.CATEGORY, book.weight());
+    }
+}
@@ -0,0 +1,301 @@
+package com.online_library_service.search;
+
+import com.online_library_service.enums.SuggestionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Path-compressed prefix trie over weighted suggestion terms. Every node caches the
+ * top-k entries of its subtree, so a prefix lookup costs one walk down the trie and
+ * never enumerates the matching terms. Writes refresh the cached top-k along the
+ * affected path only. Not thread-safe; callers guard access.
+ */
+class SuggestionTrie {
+
+    static final class Entry {
+        final String text;
+        final SuggestionType type;
+        long weight;
+        int refs;
+
+        Entry(String text, SuggestionType type) {
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final Comparator<Entry> BY_WEIGHT = Comparator.<Entry>comparingLong(e -> e.weight).reversed()
+            .thenComparing(e -> e.text);
+
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        Entry[] terminals = NO_ENTRIES;
+        Entry[] top = NO_ENTRIES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int childIndex(char c) {
+            int lo = 0;
+            int hi = children.length - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char m = children[mid].label.charAt(0);
+                if (m < c) {
+                    lo = mid + 1;
+                } else if (m > c) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(lo + 1);
+        }
+
+        Node child(char c) {
+            int i = childIndex(c);
+            return i >= 0 ? children[i] : null;
+        }
+    }
+
+    private final int k;
+    private final Node root = new Node("");
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    SuggestionTrie(int k) {
+        this.k = k;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /** Adds one reference to a term, creating it if needed, and raises its weight. */
+    void add(String text, SuggestionType type, long weight) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String key = normalize(text);
+        Entry entry = entries.get(id(key, type));
+        if (entry == null) {
+            entry = new Entry(text.intern(), type);
+            entries.put(id(key, type), entry);
+            Node node = insert(key);
+            node.terminals = append(node.terminals, entry);
+        }
+        entry.refs++;
+        entry.weight += weight;
+        refresh(key);
+    }
+
+    /** Drops one reference to a term, lowering its weight; the term goes when unreferenced. */
+    void remove(String text, SuggestionType type, long weight) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String key = normalize(text);
+        Entry entry = entries.get(id(key, type));
+        if (entry == null) {
+            return;
+        }
+        entry.weight -= weight;
+        if (--entry.refs <= 0) {
+            entries.remove(id(key, type));
+            List<Node> path = path(key);
+            if (path != null) {
+                Node node = path.get(path.size() - 1);
+                node.terminals = without(node.terminals, entry);
+                prune(path);
+            }
+        }
+        refresh(key);
+    }
+
+    void addWeight(String text, SuggestionType type, long delta) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String key = normalize(text);
+        Entry entry = entries.get(id(key, type));
+        if (entry != null) {
+            entry.weight += delta;
+            refresh(key);
+        }
+    }
+
+    /** Returns up to {@code limit} (at most k) entries whose text starts with {@code prefix}. */
+    List<Entry> suggest(String prefix, int limit) {
+        String p = normalize(prefix);
+        Node node = root;
+        int i = 0;
+        while (i < p.length()) {
+            Node child = node.child(p.charAt(i));
+            if (child == null) {
+                return List.of();
+            }
+            int n = Math.min(child.label.length(), p.length() - i);
+            if (!child.label.regionMatches(0, p, i, n)) {
+                return List.of();
+            }
+            i += n;
+            node = child;
+        }
+        Entry[] top = node.top;
+        return Arrays.asList(top).subList(0, Math.max(0, Math.min(Math.min(limit, k), top.length)));
+    }
+
+    private Node insert(String key) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int idx = node.childIndex(key.charAt(i));
+            if (idx < 0) {
+                Node leaf = new Node(key.substring(i));
+                node.children = insertAt(node.children, -idx - 1, leaf);
+                return leaf;
+            }
+            Node child = node.children[idx];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                Node mid = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                mid.children = new Node[] { child };
+                mid.top = child.top;
+                node.children[idx] = mid;
+                child = mid;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    /** Nodes from the root to the node where {@code key} ends, or the deepest existing prefix node. */
+    private List<Node> walk(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.child(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                break;
+            }
+            node = child;
+            path.add(node);
+            i += child.label.length();
+        }
+        return path;
+    }
+
+    private List<Node> path(String key) {
+        List<Node> path = walk(key);
+        int depth = 0;
+        for (Node n : path) {
+            depth += n.label.length();
+        }
+        return depth == key.length() ? path : null;
+    }
+
+    private void refresh(String key) {
+        List<Node> path = walk(key);
+        for (int i = path.size() - 1; i >= 0; i--) {
+            recomputeTop(path.get(i));
+        }
+    }
+
+    private void recomputeTop(Node node) {
+        if (node.children.length == 0 && node.terminals.length <= k) {
+            Entry[] top = node.terminals.clone();
+            Arrays.sort(top, BY_WEIGHT);
+            node.top = top;
+            return;
+        }
+        List<Entry> candidates = new ArrayList<>(node.terminals.length + node.children.length * k);
+        candidates.addAll(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(BY_WEIGHT);
+        node.top = candidates.subList(0, Math.min(k, candidates.size())).toArray(NO_ENTRIES);
+    }
+
+    private void prune(List<Node> path) {
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node node = path.get(i);
+            Node parent = path.get(i - 1);
+            if (node.terminals.length > 0) {
+                return;
+            }
+            if (node.children.length == 0) {
+                int idx = parent.childIndex(node.label.charAt(0));
+                parent.children = removeAt(parent.children, idx);
+                path.remove(i);
+            } else if (node.children.length == 1) {
+                Node only = node.children[0];
+                node.label = node.label + only.label;
+                node.children = only.children;
+                node.terminals = only.terminals;
+                node.top = only.top;
+                return;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int n = 0;
+        while (n < max && label.charAt(n) == key.charAt(offset + n)) {
+            n++;
+        }
+        return n;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String id(String key, SuggestionType type) {
+        return type.ordinal() + key;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] out = Arrays.copyOf(entries, entries.length + 1);
+        out[entries.length] = entry;
+        return out;
+    }
+
+    private static Entry[] without(Entry[] entries, Entry entry) {
+        List<Entry> out = new ArrayList<>(Arrays.asList(entries));
+        out.remove(entry);
+        return out.toArray(NO_ENTRIES);
+    }
+
+    private static Node[] insertAt(Node[] nodes, int index, Node node) {
+        Node[] out = new Node[nodes.length + 1];
+        System.arraycopy(nodes, 0, out, 0, index);
+        out[index] = node;
+        System.arraycopy(nodes, index, out, index + 1, nodes.length - index);
+        return out;
+    }
+
+    private static Node[] removeAt(Node[] nodes, int index) {
+        Node[] out = new Node[nodes.length - 1];
+        System.arraycopy(nodes, 0, out, 0, index);
+        System.arraycopy(nodes, index + 1, out, index, nodes.length - index - 1);
+        return out;
+    }
+}
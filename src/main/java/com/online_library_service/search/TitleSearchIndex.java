@@ -0,0 +1,232 @@
+package com.online_library_service.search;
+
+import com.online_library_service.entity.Book;
+import com.online_library_service.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process trigram index over active book titles. Substring queries of three or
+ * more characters are answered by intersecting trigram posting lists and verifying
+ * the candidates, so the database never sees a leading-wildcard LIKE. Updates that
+ * arrive while a rebuild is reading the catalog are recorded and replayed on top of
+ * the freshly loaded titles, so none is lost.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TitleSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final BookRepository bookRepository;
+
+    private final Map<Long, LongPostingList> postings = new HashMap<>();
+    private final Map<Long, String> titles = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+    /** Updates made since the running rebuild started reading; null when no rebuild is running. */
+    private List<Mutation> pending;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<Book> books;
+        try {
+            books = bookRepository.findByActiveTrue();
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            titles.clear();
+            for (Book book : books) {
+                addLocked(book.getId(), book.getTitle());
+            }
+            replayed = pending.size();
+            for (Mutation mutation : pending) {
+                removeLocked(mutation.bookId());
+                if (mutation.title() != null) {
+                    addLocked(mutation.bookId(), mutation.title());
+                }
+            }
+            pending = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (replayed > 0) {
+            log.debug("Replayed {} title updates made during the rebuild", replayed);
+        }
+        log.info("Title search index built with {} books and {} trigrams in {} ms",
+                titles.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Long bookId, String title) {
+        if (bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(bookId);
+            addLocked(bookId, title);
+            if (pending != null) {
+                pending.add(new Mutation(bookId, title == null ? "" : title));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(bookId);
+            if (pending != null) {
+                pending.add(new Mutation(bookId, null));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ascending ids of indexed books whose title contains {@code query}
+     * (case-insensitive).
+     */
+    public long[] search(String query) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            if (needle.length() < GRAM) {
+                return scan(needle);
+            }
+
+            long[] grams = grams(needle);
+            LongPostingList[] lists = new LongPostingList[grams.length];
+            int shortest = 0;
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return new long[0];
+                }
+                if (lists[i].size() < lists[shortest].size()) {
+                    shortest = i;
+                }
+            }
+
+            LongPostingList driver = lists[shortest];
+            long[] out = new long[driver.size()];
+            int n = 0;
+            candidates:
+            for (int c = 0; c < driver.size(); c++) {
+                long id = driver.get(c);
+                for (int i = 0; i < lists.length; i++) {
+                    if (i != shortest && !lists[i].contains(id)) {
+                        continue candidates;
+                    }
+                }
+                if (titles.get(id).contains(needle)) {
+                    out[n++] = id;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] scan(String needle) {
+        List<Long> matches = new ArrayList<>();
+        for (Map.Entry<Long, String> e : titles.entrySet()) {
+            if (e.getValue().contains(needle)) {
+                matches.add(e.getKey());
+            }
+        }
+        long[] out = new long[matches.size()];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = matches.get(i);
+        }
+        Arrays.sort(out);
+        return out;
+    }
+
+    private void addLocked(Long bookId, String title) {
+        String normalized = normalize(title);
+        titles.put(bookId, normalized);
+        for (long gram : grams(normalized)) {
+            postings.computeIfAbsent(gram, g -> new LongPostingList()).add(bookId);
+        }
+    }
+
+    private void removeLocked(Long bookId) {
+        String previous = titles.remove(bookId);
+        if (previous == null) {
+            return;
+        }
+        for (long gram : grams(previous)) {
+            LongPostingList list = postings.get(gram);
+            if (list != null && list.remove(bookId) && list.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] grams(String text) {
+        if (text.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return grams;
+    }
+
+    /** An index ({@code title} set) or remove ({@code title} null) seen during a rebuild. */
+    private record Mutation(Long bookId, String title) {
+    }
+}
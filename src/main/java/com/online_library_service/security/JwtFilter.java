@@ -1,11 +1,14 @@
 package com.online_library_service.security;
 
+import com.online_library_service.dto.UserStatus;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,32 +17,45 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates bearer tokens. The token is parsed and verified once; tokens that carry
+ * the user id are authorised from the short-lived {@link UserStatusCache} instead of a
+ * per-request user lookup, so deactivated users are still shut out within seconds.
+ * Tokens issued before the user id claim existed go through the {@link UserDetailsService}.
+ * Revoked tokens are rejected by the in-memory {@link TokenRevocationList}.
+ */
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final UserStatusCache userStatusCache;
+    private final TokenRevocationList revocationList;
 
-    public JwtFilter(JwtUtil jwtUtil , UserDetailsService userDetailsService) {
+    public JwtFilter(JwtUtil jwtUtil , UserDetailsService userDetailsService, UserStatusCache userStatusCache,
+            TokenRevocationList revocationList) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.userStatusCache = userStatusCache;
+        this.revocationList = revocationList;
     }
 
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String email = null;
+        Claims claims = null;
         if(authHeader != null && authHeader.startsWith("Bearer ")){
-            token = authHeader.substring(7);
-            email = jwtUtil.extractEmail(token);
+            claims = jwtUtil.parseValidClaims(authHeader.substring(7));
+            if(claims != null && revocationList.isRevoked(claims)){
+                claims = null;
+            }
         }
 
-        if(email != null && SecurityContextHolder.getContext().getAuthentication() == null)
+        if(claims != null && claims.getSubject() != null && SecurityContextHolder.getContext().getAuthentication() == null)
         {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-            if(jwtUtil.isTokenValid(token , email))
+            UserDetails userDetails = authorise(claims);
+            if(userDetails != null)
             {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails , null , userDetails.getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -48,4 +64,17 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails authorise(Claims claims) {
+        String email = claims.getSubject();
+        Long userId = jwtUtil.extractUserId(claims);
+        if (userId == null) {
+            return userDetailsService.loadUserByUsername(email);
+        }
+        UserStatus status = userStatusCache.get(userId);
+        if (status == null || !status.enabled() || !email.equals(status.email())) {
+            return null;
+        }
+        return User.withUsername(email).password("").roles(status.role()).build();
+    }
 }
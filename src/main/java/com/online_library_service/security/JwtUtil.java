@@ -1,36 +1,68 @@
 package com.online_library_service.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.*;
-
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Issues and verifies JWTs. Verified claims are kept in a bounded cache keyed by the
+ * SHA-256 digest of the token, so a client presenting the same token again skips the
+ * base64 decoding, JSON parsing and signature check; each entry expires at the token's
+ * own {@code exp}. Invalid tokens are never cached.
+ */
 @Component
 public class JwtUtil {
 
+	public static final String ROLE_CLAIM = "role";
+	public static final String USER_ID_CLAIM = "uid";
+
 	@Value("${jwt.secret}")
 	private String secret;
 
 	@Value("${jwt.expiration}")
 	private Long expiration;
 
+	@Value("${jwt.claims-cache.max-size:10000}")
+	private long claimsCacheSize = 10_000;
+
 	private Key secretKey;
+	private JwtParser parser;
+	private Cache<ByteBuffer, Claims> verifiedClaims;
 
 	@PostConstruct
 	public void init() {
 		this.secretKey = Keys.hmacShaKeyFor(secret.getBytes());
+		this.parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+		this.verifiedClaims = Caffeine.newBuilder().maximumSize(claimsCacheSize).expireAfter(new UntilTokenExpiry())
+				.build();
 	}
 
-	public String generateToken(String email, String role) {
+	public String generateToken(String email, String role, Long userId) {
+		return generateToken(email, role, userId, Instant.now());
+	}
+
+	/** Issues a token whose {@code iat} is {@code issuedAt}, e.g. one placed after a revocation watermark. */
+	public String generateToken(String email, String role, Long userId, Instant issuedAt) {
 		Map<String, Object> claims = new HashMap<>();
-		claims.put("role", role);
+		claims.put(ROLE_CLAIM, role);
+		claims.put(USER_ID_CLAIM, userId);
 
-		return Jwts.builder().setClaims(claims).setSubject(email).setIssuedAt(new Date())
-				.setExpiration(new Date(System.currentTimeMillis() + expiration))
+		return Jwts.builder().setClaims(claims).setSubject(email).setId(UUID.randomUUID().toString())
+				.setIssuedAt(Date.from(issuedAt)).setExpiration(new Date(System.currentTimeMillis() + expiration))
 				.signWith(secretKey, SignatureAlgorithm.HS256).compact();
 	}
 
@@ -41,7 +73,29 @@ public class JwtUtil {
 	}
 
 	public Claims extractClaims(String token) {
-		return Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token).getBody();
+		ByteBuffer key = digest(token);
+		Claims claims = verifiedClaims.getIfPresent(key);
+		if (claims == null) {
+			claims = parser.parseClaimsJws(token).getBody();
+			verifiedClaims.put(key, claims);
+		}
+		return claims;
+	}
+
+	/** Verifies the signature and expiry once; returns the claims, or null if the token is not valid. */
+	public Claims parseValidClaims(String token) {
+		try {
+			Claims claims = extractClaims(token);
+			return claims.getExpiration() == null || claims.getExpiration().before(new Date()) ? null : claims;
+		} catch (JwtException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/** The user id embedded at login, or null for tokens issued before it was added. */
+	public Long extractUserId(Claims claims) {
+		Object userId = claims.get(USER_ID_CLAIM);
+		return userId instanceof Number number ? number.longValue() : null;
 	}
 
 	public String extractEmail(String token) {
@@ -49,7 +103,7 @@ public class JwtUtil {
 	}
 
 	public String extractRole(String token) {
-		return (String) extractClaims(token).get("role");
+		return (String) extractClaims(token).get(ROLE_CLAIM);
 	}
 
 	public boolean validateToken(String token) {
@@ -69,4 +123,32 @@ public class JwtUtil {
 		Claims claims = extractClaims(token);
 		return claims.getSubject().equals(email) && !claims.getExpiration().before(new Date());
 	}
+
+	private static ByteBuffer digest(String token) {
+		try {
+			return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	/** Keeps verified claims only as long as the token itself is valid. */
+	private static final class UntilTokenExpiry implements Expiry<ByteBuffer, Claims> {
+
+		@Override
+		public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+			Date exp = claims.getExpiration();
+			return exp == null ? 0 : TimeUnit.MILLISECONDS.toNanos(Math.max(0, exp.getTime() - System.currentTimeMillis()));
+		}
+
+		@Override
+		public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, claims, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
 }
@@ -0,0 +1,121 @@
+package com.online_library_service.security;
+
+import com.online_library_service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps password checks from starving the rest of the service. Attempts are first
+ * rate limited per email and per client IP, then run on the bounded {@code loginExecutor}
+ * so at most its pool size of BCrypt hashes are computed at once. When the pool and its
+ * queue are full, or an attempt waits longer than {@code timeout}, the caller is told to
+ * retry later instead of piling up on a request thread.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+
+    private final TokenBucketLimiter perEmail;
+    private final TokenBucketLimiter perIp;
+    private final ThreadPoolTaskExecutor loginExecutor;
+    private final Duration timeout;
+
+    private final Timer loginTimer;
+    private final Timer queueWait;
+    private final Counter emailLimited;
+    private final Counter ipLimited;
+    private final Counter overloaded;
+
+    public LoginThrottle(@Qualifier("loginExecutor") ThreadPoolTaskExecutor loginExecutor, MeterRegistry meterRegistry,
+            @Value("${security.login.per-email.capacity:5}") int emailCapacity,
+            @Value("${security.login.per-email.refill-period:1m}") Duration emailRefillPeriod,
+            @Value("${security.login.per-ip.capacity:30}") int ipCapacity,
+            @Value("${security.login.per-ip.refill-period:1m}") Duration ipRefillPeriod,
+            @Value("${security.login.timeout:5s}") Duration timeout) {
+        this.perEmail = new TokenBucketLimiter(emailCapacity, emailRefillPeriod.toNanos(), 64, 2048, System::nanoTime);
+        this.perIp = new TokenBucketLimiter(ipCapacity, ipRefillPeriod.toNanos(), 64, 2048, System::nanoTime);
+        this.loginExecutor = loginExecutor;
+        this.timeout = timeout;
+
+        this.loginTimer = Timer.builder("auth.login.duration")
+                .description("Login time including the wait for a hashing slot")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("auth.login.queue.wait").register(meterRegistry);
+        this.emailLimited = rejected(meterRegistry, "email");
+        this.ipLimited = rejected(meterRegistry, "ip");
+        this.overloaded = rejected(meterRegistry, "overloaded");
+        Gauge.builder("auth.login.queue.depth", loginExecutor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("auth.login.active", loginExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    /** Runs {@code login} for {@code email} from {@code clientIp}, or throws {@link TooManyRequestsException}. */
+    public <T> T execute(String email, String clientIp, Supplier<T> login) {
+        long waitNanos = perIp.tryAcquire(clientIp == null ? "unknown" : clientIp);
+        if (waitNanos > 0) {
+            ipLimited.increment();
+            throw tooMany("Too many login attempts from this address", waitNanos);
+        }
+        waitNanos = perEmail.tryAcquire(email.toLowerCase(Locale.ROOT));
+        if (waitNanos > 0) {
+            emailLimited.increment();
+            throw tooMany("Too many login attempts for this account", waitNanos);
+        }
+
+        long submittedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = loginExecutor.submit(() -> {
+                queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return login.get();
+            });
+        } catch (TaskRejectedException ex) {
+            overloaded.increment();
+            throw new TooManyRequestsException("Login is busy, please retry shortly", Duration.ofSeconds(1));
+        }
+        try {
+            return result.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            result.cancel(true);
+            overloaded.increment();
+            log.warn("Login for {} timed out after {}", email, timeout);
+            throw new TooManyRequestsException("Login is busy, please retry shortly", Duration.ofSeconds(1));
+        } catch (InterruptedException ex) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while logging in", ex);
+        } finally {
+            loginTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static TooManyRequestsException tooMany(String message, long waitNanos) {
+        return new TooManyRequestsException(message, Duration.ofSeconds(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1)));
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.login.rejected").tag("reason", reason).register(meterRegistry);
+    }
+}
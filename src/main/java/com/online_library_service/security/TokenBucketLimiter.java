@@ -0,0 +1,83 @@
+package com.online_library_service.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets by key, striped across independently locked maps so concurrent callers
+ * for different keys rarely contend. Each stripe keeps at most {@code maxKeysPerStripe}
+ * buckets and forgets the least recently used one first; a forgotten key simply starts
+ * again with a full bucket.
+ */
+final class TokenBucketLimiter {
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+
+    TokenBucketLimiter(int capacity, long refillPeriodNanos, int stripeCount, int maxKeysPerStripe,
+            LongSupplier nanoClock) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+        this.stripeMask = size - 1;
+        this.capacity = capacity;
+        this.tokensPerNano = (double) capacity / refillPeriodNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /** Takes one token for {@code key}; returns 0 if granted, otherwise the nanoseconds until one is available. */
+    long tryAcquire(String key) {
+        Stripe stripe = stripes[spread(key.hashCode()) & stripeMask];
+        long now = nanoClock.getAsLong();
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.updatedAt) * tokensPerNano);
+                bucket.updatedAt = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerNano);
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Bucket {
+
+        double tokens;
+        long updatedAt;
+
+        Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    private static final class Stripe {
+
+        final Map<String, Bucket> buckets;
+
+        Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.online_library_service.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revoked access tokens, checked by the JWT filter on every request without a database
+ * round trip. Two mechanisms:
+ * <ul>
+ * <li>a per-user watermark: tokens issued before it are rejected (password change or
+ * reset logs the user out everywhere). {@code iat} only has whole seconds, so every
+ * token issued in the watermark's second is rejected and tokens issued afterwards are
+ * dated from the next second, see {@link #issueTime};</li>
+ * <li>a denylist of token ids (logout), held locally as Bloom filters bucketed by token
+ * expiry. A token is only tested against the bucket its own {@code exp} falls in, and a
+ * bucket is dropped once every token it covers has expired. A Bloom hit is confirmed
+ * against the exact entry in Redis, which is also what survives restarts; ids Redis
+ * clears are remembered in the bucket so a false positive costs one round trip, not
+ * one per request.</li>
+ * </ul>
+ * Revocations are written to Redis with a TTL and announced on {@code channel} so every
+ * node updates its local copy; a starting node loads the current set from Redis.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    static final String TOKEN_PREFIX = "auth:revoked:jti:";
+    static final String USER_PREFIX = "auth:revoked:before:";
+    private static final String SEPARATOR = "|";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final long bucketSeconds;
+    private final int bucketCapacity;
+    private final double falsePositiveRate;
+    private final Duration tokenLifetime;
+
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final Counter revokedTokens;
+    private final Counter revokedUsers;
+    private final Counter falsePositives;
+
+    public TokenRevocationList(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+            @Value("${security.revocation.channel:auth:revocations}") String channel,
+            @Value("${security.revocation.bucket:15m}") Duration bucket,
+            @Value("${security.revocation.bucket-capacity:100000}") int bucketCapacity,
+            @Value("${security.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${jwt.expiration}") long tokenLifetimeMillis) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.bucketSeconds = Math.max(1, bucket.toSeconds());
+        this.bucketCapacity = bucketCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.tokenLifetime = Duration.ofMillis(tokenLifetimeMillis);
+
+        this.revokedTokens = Counter.builder("auth.revocations").tag("scope", "token").register(meterRegistry);
+        this.revokedUsers = Counter.builder("auth.revocations").tag("scope", "user").register(meterRegistry);
+        this.falsePositives = Counter.builder("auth.revocations.bloom.false.positives")
+                .description("Denylist lookups that the Bloom filter passed on to Redis and Redis rejected")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocations.bloom.bytes", this, TokenRevocationList::bloomBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("auth.revocations.users", revokedBefore, Map::size).register(meterRegistry);
+    }
+
+    /** True if the token was logged out or issued before its user's last password change. */
+    public boolean isRevoked(Claims claims) {
+        Long before = revokedBefore.get(claims.getSubject());
+        if (before != null && claims.getIssuedAt() != null && claims.getIssuedAt().getTime() / 1000 <= before) {
+            return true;
+        }
+        String tokenId = claims.getId();
+        Date expiration = claims.getExpiration();
+        if (tokenId == null || expiration == null) {
+            return false;
+        }
+        Bucket bucket = buckets.get(bucketOf(expiration.getTime() / 1000));
+        if (bucket == null || !bucket.filter.mightContain(tokenId) || bucket.cleared.contains(tokenId)) {
+            return false;
+        }
+        long revocations = bucket.revocations.get();
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(TOKEN_PREFIX + tokenId))) {
+                return true;
+            }
+            falsePositives.increment();
+            bucket.cleared.add(tokenId);
+            if (bucket.revocations.get() != revocations) {
+                // a revocation landed while Redis was being asked; do not trust the answer
+                bucket.cleared.remove(tokenId);
+            }
+            return false;
+        } catch (DataAccessException ex) {
+            log.warn("Cannot confirm revocation of token {}, rejecting it: {}", tokenId, ex.getMessage());
+            return true;
+        }
+    }
+
+    /** Revokes one token, e.g. on logout. Tokens without an id are revoked by watermark instead. */
+    public void revokeToken(Claims claims) {
+        if (claims.getId() == null) {
+            revokeAllBefore(claims.getSubject(), Instant.now());
+            return;
+        }
+        long expiresAt = claims.getExpiration().getTime() / 1000;
+        long ttl = expiresAt - Instant.now().getEpochSecond();
+        if (ttl <= 0) {
+            return;
+        }
+        addToken(claims.getId(), expiresAt);
+        revokedTokens.increment();
+        publish(TOKEN_PREFIX + claims.getId(), expiresAt, Duration.ofSeconds(ttl),
+                "jti" + SEPARATOR + expiresAt + SEPARATOR + claims.getId());
+    }
+
+    /**
+     * The {@code iat} to give a token issued to {@code email} now: the current time, or
+     * the second after the user's watermark while the clock is still in that second, so
+     * a login straight after a password change is not caught by the change.
+     */
+    public Instant issueTime(String email) {
+        Instant now = Instant.now();
+        Long before = revokedBefore.get(email);
+        return before != null && now.getEpochSecond() <= before ? Instant.ofEpochSecond(before + 1) : now;
+    }
+
+    /** Revokes every token of the user issued before {@code instant}, e.g. on password change. */
+    public void revokeAllBefore(String email, Instant instant) {
+        long before = instant.getEpochSecond();
+        addWatermark(email, before);
+        revokedUsers.increment();
+        publish(USER_PREFIX + email, before, tokenLifetime, "user" + SEPARATOR + before + SEPARATOR + email);
+    }
+
+    public void onRevocationMessage(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3) {
+            return;
+        }
+        try {
+            long epochSeconds = Long.parseLong(parts[1]);
+            if ("jti".equals(parts[0])) {
+                addToken(parts[2], epochSeconds);
+            } else if ("user".equals(parts[0])) {
+                addWatermark(parts[2], epochSeconds);
+            }
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadFromRedis() {
+        try {
+            int tokens = load(TOKEN_PREFIX, this::addToken);
+            int users = load(USER_PREFIX, this::addWatermark);
+            log.info("Loaded {} revoked tokens and {} user watermarks", tokens, users);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to load token revocations from Redis: {}", ex.getMessage());
+        }
+    }
+
+    /** Drops denylist buckets and watermarks that no unexpired token can match any more. */
+    @Scheduled(fixedDelayString = "${security.revocation.purge-interval:PT5M}")
+    public void purgeExpired() {
+        long now = Instant.now().getEpochSecond();
+        long currentBucket = bucketOf(now);
+        buckets.keySet().removeIf(bucket -> bucket < currentBucket);
+        long oldestLiveIssue = now - tokenLifetime.toSeconds();
+        revokedBefore.values().removeIf(before -> before < oldestLiveIssue);
+    }
+
+    private void addToken(String tokenId, long expiresAt) {
+        Bucket bucket = buckets.computeIfAbsent(bucketOf(expiresAt),
+                b -> new Bucket(new BloomFilter(bucketCapacity, falsePositiveRate)));
+        bucket.filter.put(tokenId);
+        bucket.revocations.incrementAndGet();
+        bucket.cleared.remove(tokenId);
+    }
+
+    private void addWatermark(String email, long before) {
+        revokedBefore.merge(email, before, Math::max);
+    }
+
+    private long bucketOf(long epochSeconds) {
+        return epochSeconds / bucketSeconds;
+    }
+
+    private void publish(String key, long value, Duration ttl, String message) {
+        try {
+            redisTemplate.opsForValue().set(key, Long.toString(value), ttl);
+            redisTemplate.convertAndSend(channel, message);
+        } catch (DataAccessException ex) {
+            log.error("Failed to replicate revocation {}; it only applies on this node: {}", key, ex.getMessage());
+        }
+    }
+
+    private int load(String prefix, Loader loader) {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        int loaded = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value != null) {
+                loader.accept(keys.get(i).substring(prefix.length()), Long.parseLong(value));
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private double bloomBytes() {
+        long total = 0;
+        for (Bucket bucket : buckets.values()) {
+            total += bucket.filter.sizeInBytes();
+        }
+        return total;
+    }
+
+    /** Denylist for tokens expiring in one time slice, plus the Bloom false positives Redis has cleared. */
+    private record Bucket(BloomFilter filter, Set<String> cleared, AtomicLong revocations) {
+
+        Bucket(BloomFilter filter) {
+            this(filter, ConcurrentHashMap.newKeySet(), new AtomicLong());
+        }
+    }
+
+    @FunctionalInterface
+    private interface Loader {
+        void accept(String id, long epochSeconds);
+    }
+}
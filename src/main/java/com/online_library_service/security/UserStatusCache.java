@@ -0,0 +1,76 @@
+package com.online_library_service.security;
+
+import com.online_library_service.dto.UserStatus;
+import com.online_library_service.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Enabled flag and role by user id, read by the JWT filter on every request. Entries
+ * live in the near cache for a few seconds ({@code cache.near.caches.userStatus.*}),
+ * so most requests are authorised without touching Redis or the database; user
+ * deactivation evicts the entry on every node. A cache outage falls back to the
+ * database rather than rejecting the request.
+ */
+@Component
+@Slf4j
+public class UserStatusCache {
+
+    public static final String CACHE_NAME = "userStatus";
+
+    private final UserRepository userRepository;
+    private final CacheManager cacheManager;
+
+    public UserStatusCache(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /** Returns the user's status, or null if no such user exists. */
+    public UserStatus get(Long userId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return load(userId);
+        }
+        try {
+            UserStatus status = cache.get(userId, UserStatus.class);
+            if (status == null) {
+                status = load(userId);
+                if (status != null) {
+                    cache.put(userId, status);
+                }
+            }
+            return status;
+        } catch (DataAccessException ex) {
+            log.warn("User status cache unavailable, reading user {} from the database: {}", userId, ex.getMessage());
+            return load(userId);
+        }
+    }
+
+    public void evict(Long userId) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.evict(userId);
+        } catch (DataAccessException ex) {
+            log.warn("Failed to evict user status {}: {}", userId, ex.getMessage());
+        }
+    }
+
+    public void evictAll(Collection<Long> userIds) {
+        userIds.forEach(this::evict);
+    }
+
+    private UserStatus load(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> new UserStatus(user.getId(), user.getEmail(), user.getRole().name(), user.isEnabled()))
+                .orElse(null);
+    }
+}
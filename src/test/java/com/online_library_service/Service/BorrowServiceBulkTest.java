@@ -0,0 +1,170 @@
+package com.online_library_service.Service;
+
+import com.online_library_service.cache.CatalogListCache;
+import com.online_library_service.dto.BulkItemResult;
+import com.online_library_service.entity.Book;
+import com.online_library_service.entity.User;
+import com.online_library_service.entity.UserBookHistory;
+import com.online_library_service.enums.BookStatus;
+import com.online_library_service.report.TopBorrowTracker;
+import com.online_library_service.repository.BookRepository;
+import com.online_library_service.repository.UserBookHistoryRepository;
+import com.online_library_service.repository.UserRepository;
+import com.online_library_service.search.SuggestionIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The bulk paths rely on Postgres {@code UPDATE ... RETURNING}, which H2 cannot run, so the repositories are
+ * stubbed with the rows those statements would return and only the mapping around them is checked here.
+ */
+class BorrowServiceBulkTest {
+
+	private static final long USER_ID = 7L;
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final BookRepository bookRepository = mock(BookRepository.class);
+	private final UserBookHistoryRepository historyRepository = mock(UserBookHistoryRepository.class);
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final TopBorrowTracker topBorrowTracker = mock(TopBorrowTracker.class);
+	private final CacheManager cacheManager = mock(CacheManager.class);
+	private final Cache booksCache = mock(Cache.class);
+
+	private final BorrowService borrowService = new BorrowService(userRepository, bookRepository, historyRepository,
+			mock(SuggestionIndex.class), mock(CatalogListCache.class), jdbcTemplate, topBorrowTracker, cacheManager);
+
+	private final User user = user();
+
+	@BeforeEach
+	void setUp() {
+		when(userRepository.findById(USER_ID)).thenReturn(Optional.of(user));
+		when(cacheManager.getCache("books")).thenReturn(booksCache);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void borrowBooksReportsAReasonForEveryBookItCouldNotClaim() throws Exception {
+		Book claimed = book(1L, BookStatus.AVAILABLE, true);
+		Book taken = book(2L, BookStatus.TAKEN, true);
+		Book inactive = book(3L, BookStatus.AVAILABLE, false);
+		when(bookRepository.claimAvailable(anyCollection())).thenReturn(List.of(1L));
+		when(bookRepository.findAllById(anyCollection())).thenReturn(List.of(claimed, taken, inactive));
+
+		List<BulkItemResult> results = borrowService.borrowBooks(USER_ID, List.of(1L, 2L, 3L, 4L, 1L));
+
+		assertThat(results).extracting(BulkItemResult::getId).containsExactly(1L, 2L, 3L, 4L);
+		assertThat(results).extracting(BulkItemResult::isSuccess).containsExactly(true, false, false, false);
+		assertThat(results).extracting(BulkItemResult::getMessage).containsExactly(
+				"Book borrowed successfully",
+				"Book is already taken",
+				"Book is deactivated",
+				"Book not found with ID: 4");
+
+		ArgumentCaptor<Collection<Long>> rows = ArgumentCaptor.forClass(Collection.class);
+		ArgumentCaptor<ParameterizedPreparedStatementSetter<Long>> setter =
+				ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+		verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), eq(1), setter.capture());
+		assertThat(rows.getValue()).containsExactly(1L);
+		PreparedStatement ps = mock(PreparedStatement.class);
+		setter.getValue().setValues(ps, 1L);
+		verify(ps).setLong(1, USER_ID);
+		verify(ps).setLong(2, 1L);
+		verify(ps).setObject(3, LocalDate.now());
+
+		verify(topBorrowTracker).recordBorrow(1L, USER_ID, LocalDate.now());
+		verify(booksCache).evict(1L);
+		verify(booksCache, never()).evict(2L);
+	}
+
+	@Test
+	void returnBooksMapsReturnedRowsAndExplainsTheRest() {
+		UserBookHistory othersBorrow = history(11L, 99L, book(21L, BookStatus.TAKEN, true));
+		UserBookHistory alreadyReturned = history(12L, USER_ID, book(22L, BookStatus.AVAILABLE, true));
+		UserBookHistory deactivated = history(14L, USER_ID, book(24L, BookStatus.TAKEN, false));
+		Book returned = book(20L, BookStatus.AVAILABLE, true);
+		when(historyRepository.markReturnedForUser(anyCollection(), eq(USER_ID), any(LocalDate.class)))
+				.thenReturn(List.<Object[]>of(new Object[] {10, 20L}));
+		when(bookRepository.findAllById(anyCollection())).thenReturn(List.of(returned));
+		when(historyRepository.findAllById(List.of(11L, 12L, 13L, 14L)))
+				.thenReturn(List.of(othersBorrow, alreadyReturned, deactivated));
+
+		List<BulkItemResult> results = borrowService.returnBooks(USER_ID, List.of(10L, 11L, 12L, 13L, 14L));
+
+		assertThat(results).extracting(BulkItemResult::getId).containsExactly(10L, 11L, 12L, 13L, 14L);
+		assertThat(results).extracting(BulkItemResult::getMessage).containsExactly(
+				"Book returned successfully",
+				"This borrow record does not belong to the user",
+				"Book has already been returned",
+				"Borrow record not found with ID: 13",
+				"Book is deactivated");
+		verify(bookRepository).transitionStatuses(argThat(ids -> List.copyOf(ids).equals(List.of(20L))),
+				eq(BookStatus.TAKEN), eq(BookStatus.AVAILABLE));
+		verify(booksCache).evict(20L);
+		verify(booksCache, never()).evict(21L);
+		verify(booksCache, never()).evict(24L);
+	}
+
+	@Test
+	void returnBooksSkipsTheStatusUpdateWhenNothingWasReturned() {
+		when(historyRepository.markReturnedForUser(anyCollection(), eq(USER_ID), any(LocalDate.class)))
+				.thenReturn(List.of());
+		when(historyRepository.findAllById(List.of(10L))).thenReturn(List.of());
+
+		List<BulkItemResult> results = borrowService.returnBooks(USER_ID, List.of(10L));
+
+		assertThat(results).extracting(BulkItemResult::isSuccess).containsExactly(false);
+		verify(bookRepository, never()).transitionStatuses(anyCollection(), any(), any());
+		verify(booksCache, never()).evict(any());
+	}
+
+	private static User user() {
+		User user = new User();
+		user.setId(USER_ID);
+		user.setEmail("reader@example.com");
+		user.setMembershipEndDate(LocalDate.now().plusMonths(1));
+		return user;
+	}
+
+	private static Book book(Long id, BookStatus status, boolean active) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle("Title " + id);
+		book.setAuthor("Author");
+		book.setCategory("Category");
+		book.setStatus(status);
+		book.setActive(active);
+		return book;
+	}
+
+	private static UserBookHistory history(Long id, Long userId, Book book) {
+		User owner = new User();
+		owner.setId(userId);
+		UserBookHistory history = new UserBookHistory();
+		history.setId(id);
+		history.setUser(owner);
+		history.setBook(book);
+		return history;
+	}
+}
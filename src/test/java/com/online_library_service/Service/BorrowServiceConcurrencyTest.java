@@ -0,0 +1,180 @@
+package com.online_library_service.Service;
+
+import com.online_library_service.cache.CatalogListCache;
+import com.online_library_service.entity.Book;
+import com.online_library_service.entity.User;
+import com.online_library_service.enums.BookStatus;
+import com.online_library_service.enums.Role;
+import com.online_library_service.exception.BadRequestException;
+import com.online_library_service.report.TopBorrowTracker;
+import com.online_library_service.repository.BookRepository;
+import com.online_library_service.repository.UserBookHistoryRepository;
+import com.online_library_service.repository.UserRepository;
+import com.online_library_service.search.SuggestionIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(BorrowService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BorrowServiceConcurrencyTest {
+
+	private static final int THREADS = 64;
+	private static final int BOOKS = 20;
+
+	@Autowired
+	private BorrowService borrowService;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private UserBookHistoryRepository historyRepository;
+
+	@MockitoBean
+	private SuggestionIndex suggestionIndex;
+
+	@MockitoBean
+	private CatalogListCache catalogListCache;
+
+	@MockitoBean
+	private TopBorrowTracker topBorrowTracker;
+
+	@MockitoBean
+	private CacheManager cacheManager;
+
+	@AfterEach
+	void cleanUp() {
+		historyRepository.deleteAll();
+		bookRepository.deleteAll();
+		userRepository.deleteAll();
+	}
+
+	@Test
+	void neverLendsTheSameCopyTwiceUnderContention() throws Exception {
+		List<Long> userIds = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			userIds.add(userRepository.save(user(i)).getId());
+		}
+		List<Long> bookIds = new ArrayList<>();
+		for (int i = 0; i < BOOKS; i++) {
+			bookIds.add(bookRepository.save(book(i)).getId());
+		}
+
+		AtomicInteger borrowed = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (Long userId : userIds) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (Long bookId : bookIds) {
+					try {
+						borrowService.borrowBook(userId, bookId);
+						borrowed.incrementAndGet();
+					} catch (BadRequestException ex) {
+						rejected.incrementAndGet();
+					}
+				}
+				return null;
+			}));
+		}
+
+		long began = System.nanoTime();
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		double seconds = (System.nanoTime() - began) / 1e9;
+		pool.shutdown();
+
+		log.info("{} borrow attempts from {} threads in {} s ({} attempts/s)", THREADS * BOOKS, THREADS,
+				String.format("%.3f", seconds), String.format("%.0f", THREADS * BOOKS / seconds));
+
+		assertThat(borrowed.get()).isEqualTo(BOOKS);
+		assertThat(rejected.get()).isEqualTo(THREADS * BOOKS - BOOKS);
+
+		Map<Long, Long> historyPerBook = historyRepository.findAll().stream()
+				.collect(Collectors.groupingBy(h -> h.getBook().getId(), Collectors.counting()));
+		assertThat(historyPerBook).hasSize(BOOKS).allSatisfy((bookId, count) -> assertThat(count).isEqualTo(1L));
+		assertThat(bookRepository.findAll()).allSatisfy(b -> assertThat(b.getStatus()).isEqualTo(BookStatus.TAKEN));
+	}
+
+	@Test
+	void returnsEachBorrowOnlyOnce() throws Exception {
+		Long userId = userRepository.save(user(0)).getId();
+		Long bookId = bookRepository.save(book(0)).getId();
+		borrowService.borrowBook(userId, bookId);
+		Long borrowId = historyRepository.findByUserId(userId).get(0).getId();
+
+		AtomicInteger returned = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(pool.submit(() -> {
+				try {
+					borrowService.returnBook(userId, borrowId);
+					returned.incrementAndGet();
+				} catch (BadRequestException ignored) {
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		pool.shutdown();
+
+		assertThat(returned.get()).isEqualTo(1);
+		Map<Long, Book> books = bookRepository.findAll().stream()
+				.collect(Collectors.toMap(Book::getId, Function.identity()));
+		assertThat(books.get(bookId).getStatus()).isEqualTo(BookStatus.AVAILABLE);
+	}
+
+	private static User user(int i) {
+		User user = new User();
+		user.setName("Reader " + i);
+		user.setEmail("reader" + i + "@example.com");
+		user.setPassword("secret");
+		user.setRole(Role.USER);
+		user.setMembershipStartDate(LocalDate.now().minusMonths(1));
+		user.setMembershipEndDate(LocalDate.now().plusMonths(1));
+		return user;
+	}
+
+	private static Book book(int i) {
+		Book book = new Book();
+		book.setTitle("Title " + i);
+		book.setAuthor("Author " + i);
+		book.setCategory("Category " + (i % 3));
+		book.setStatus(BookStatus.AVAILABLE);
+		return book;
+	}
+}
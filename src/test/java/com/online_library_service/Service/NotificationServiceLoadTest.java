@@ -0,0 +1,104 @@
+package com.online_library_service.Service;
+
+import com.online_library_service.config.AsyncConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pushes a burst of single-recipient emails through each executor mode against a mail
+ * server that takes {@value #SMTP_LATENCY_MS} ms per message. Throughput depends on the
+ * machine, so it is only logged; the comparison asserts what drives it instead, the
+ * peak number of sends in flight. The platform pool keeps a queued burst on its core
+ * threads, while virtual threads reach the full SMTP permit limit.
+ */
+@Slf4j
+class NotificationServiceLoadTest {
+
+	private static final int EMAILS = 400;
+	private static final int SMTP_LATENCY_MS = 20;
+	private static final int SMTP_PERMITS = 20;
+	private static final int PLATFORM_CORE_POOL = 10;
+	private static final int PLATFORM_MAX_POOL = 50;
+	private static final int THREAD_SLACK = 16;
+	private static final long TIMEOUT_MS = 30_000;
+
+	@Test
+	void virtualModeKeepsMoreSendsInFlightWithBoundedPlatformThreads() throws Exception {
+		Result platform = run("platform");
+		Result virtual = run("virtual");
+
+		log.info("platform: {} emails/s, peak {} sends in flight, peak {} extra platform threads",
+				platform.perSecond, platform.peakInFlight, platform.peakThreads);
+		log.info("virtual:  {} emails/s, peak {} sends in flight, peak {} extra platform threads",
+				virtual.perSecond, virtual.peakInFlight, virtual.peakThreads);
+
+		assertThat(platform.undelivered).isZero();
+		assertThat(virtual.undelivered).isZero();
+		assertThat(platform.peakInFlight).isLessThanOrEqualTo(PLATFORM_CORE_POOL);
+		assertThat(virtual.peakInFlight).isEqualTo(SMTP_PERMITS).isGreaterThan(platform.peakInFlight);
+		assertThat(platform.peakThreads).isLessThanOrEqualTo(PLATFORM_MAX_POOL + THREAD_SLACK);
+		assertThat(virtual.peakThreads)
+				.isLessThanOrEqualTo(Runtime.getRuntime().availableProcessors() + THREAD_SLACK);
+	}
+
+	private Result run(String mode) throws Exception {
+		JavaMailSender mailSender = mock(JavaMailSender.class);
+		CountDownLatch sent = new CountDownLatch(EMAILS);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger peakInFlight = new AtomicInteger();
+		doAnswer(inv -> {
+			peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			Thread.sleep(SMTP_LATENCY_MS);
+			inFlight.decrementAndGet();
+			sent.countDown();
+			return null;
+		}).when(mailSender).send(any(SimpleMailMessage[].class));
+
+		Executor executor = new AsyncConfig().taskExecutor(mode);
+		NotificationService service = new NotificationService(mailSender, null, SMTP_PERMITS);
+
+		int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+		int peakThreads = threadsBefore;
+
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+		try {
+			for (int i = 0; i < EMAILS; i++) {
+				SimpleMailMessage message = new SimpleMailMessage();
+				message.setTo("reader" + i + "@example.com");
+				message.setSubject("Subject");
+				message.setText("Body");
+				executor.execute(() -> service.deliver(new SimpleMailMessage[] { message }));
+			}
+			while (!sent.await(10, TimeUnit.MILLISECONDS) && System.nanoTime() < deadline) {
+				peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+			}
+			long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+			return new Result(EMAILS * 1000L / elapsedMs, peakInFlight.get(), peakThreads - threadsBefore,
+					sent.getCount());
+		} finally {
+			if (executor instanceof ThreadPoolTaskExecutor pool) {
+				pool.shutdown();
+			} else if (executor instanceof AutoCloseable closeable) {
+				closeable.close();
+			}
+		}
+	}
+
+	private record Result(long perSecond, int peakInFlight, int peakThreads, long undelivered) {
+	}
+}
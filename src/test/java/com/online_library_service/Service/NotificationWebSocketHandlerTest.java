@@ -0,0 +1,72 @@
+package com.online_library_service.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationWebSocketHandlerTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final WebSocketSessionRegistry registry = new WebSocketSessionRegistry(meterRegistry, 4,
+			Duration.ofSeconds(10), 1 << 16, "drop");
+	private final NotificationWebSocketHandler handler = new NotificationWebSocketHandler(registry,
+			new ObjectMapper(), meterRegistry);
+
+	@Test
+	void broadcastReachesOnlyMatchingSubscribers() throws Exception {
+		WebSocketSession everything = connect("1", "/ws/notifications?userId=1");
+		WebSocketSession fiction = connect("2", "/ws/notifications?userId=2&category=Fiction");
+		WebSocketSession history = connect("3", "/ws/notifications?userId=3&category=History");
+		WebSocketSession tolkien = connect("4", "/ws/notifications?userId=4");
+		handler.handleMessage(tolkien, new TextMessage("{\"action\":\"subscribe\",\"author\":\"tolkien\"}"));
+
+		int queued = handler.broadcast("fiction", "J.R.R. Tolkien", "{\"message\":\"x\"}");
+
+		assertThat(queued).isEqualTo(2);
+		verify(everything, timeout(1000)).sendMessage(any());
+		verify(fiction, timeout(1000)).sendMessage(any());
+		verify(history, never()).sendMessage(any());
+		verify(tolkien, never()).sendMessage(any());
+
+		assertThat(handler.broadcast("Fantasy", "Tolkien", "{}")).isEqualTo(2);
+		verify(tolkien, timeout(1000)).sendMessage(any());
+	}
+
+	@Test
+	void everySessionOfAUserReceivesTargetedMessages() throws Exception {
+		WebSocketSession laptop = connect("a", "/ws/notifications?userId=9");
+		WebSocketSession phone = connect("b", "/ws/notifications?userId=9");
+
+		assertThat(handler.sendNotificationToUser(9L, "{}")).isTrue();
+
+		verify(laptop, timeout(1000)).sendMessage(any(WebSocketMessage.class));
+		verify(phone, timeout(1000)).sendMessage(any(WebSocketMessage.class));
+	}
+
+	private WebSocketSession connect(String id, String uri) throws Exception {
+		WebSocketSession session = mock(WebSocketSession.class);
+		Map<String, Object> attributes = new HashMap<>();
+		when(session.getId()).thenReturn(id);
+		when(session.isOpen()).thenReturn(true);
+		when(session.getUri()).thenReturn(URI.create(uri));
+		when(session.getAttributes()).thenReturn(attributes);
+		handler.afterConnectionEstablished(session);
+		return session;
+	}
+}
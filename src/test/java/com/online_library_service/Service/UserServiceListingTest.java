@@ -0,0 +1,105 @@
+package com.online_library_service.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.online_library_service.config.ModelMapperConfig;
+import com.online_library_service.dto.CursorPage;
+import com.online_library_service.dto.UserDto;
+import com.online_library_service.entity.User;
+import com.online_library_service.enums.Role;
+import com.online_library_service.kafka.MembershipEventProducer;
+import com.online_library_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ UserService.class, ModelMapperConfig.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class UserServiceListingTest {
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockitoBean
+	private MembershipEventProducer membershipEventProducer;
+
+	private final List<Long> activeIds = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		for (int i = 0; i < 25; i++) {
+			User user = userRepository.save(user(i, i % 5 != 4));
+			if (user.isActive()) {
+				activeIds.add(user.getId());
+			}
+		}
+	}
+
+	@Test
+	void walksActiveUsersPageByPage() {
+		List<Long> seen = new ArrayList<>();
+		Long cursor = null;
+		int pages = 0;
+		CursorPage<UserDto> page;
+		do {
+			page = userService.getAllUsers(cursor, 8);
+			page.getItems().forEach(user -> seen.add(user.getId()));
+			assertThat(page.getItems()).allSatisfy(user -> assertThat(user.getEmail()).startsWith("reader"));
+			cursor = page.getNextCursor();
+			pages++;
+		} while (page.isHasNext());
+
+		assertThat(seen).containsExactlyElementsOf(activeIds);
+		assertThat(pages).isEqualTo(3);
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void exportWritesOneJsonLinePerActiveUserWithoutPasswords() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		userService.exportUsers(out);
+
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertThat(lines).hasSize(activeIds.size());
+		List<Long> ids = new ArrayList<>();
+		for (String line : lines) {
+			JsonNode json = objectMapper.readTree(line);
+			assertThat(json.has("password")).isFalse();
+			ids.add(json.get("id").asLong());
+		}
+		assertThat(ids).containsExactlyElementsOf(activeIds);
+	}
+
+	private static User user(int i, boolean active) {
+		User user = new User();
+		user.setName("Reader " + i);
+		user.setEmail("reader" + i + "@example.com");
+		user.setPassword("secret");
+		user.setRole(Role.USER);
+		user.setActive(active);
+		user.setMembershipStartDate(LocalDate.now().minusMonths(1));
+		user.setMembershipEndDate(LocalDate.now().plusMonths(1));
+		return user;
+	}
+}
@@ -0,0 +1,142 @@
+package com.online_library_service.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketSessionRegistryTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void deliversToEverySessionOfTheUser() throws Exception {
+		WebSocketSessionRegistry registry = registry(1024);
+		WebSocketSession first = session("a");
+		WebSocketSession second = session("b");
+		registry.register(7L, first);
+		registry.register(7L, second);
+
+		assertThat(registry.send(7L, new TextMessage("hello"))).isTrue();
+		assertThat(registry.send(8L, new TextMessage("hello"))).isFalse();
+
+		verify(first, timeout(1000)).sendMessage(any());
+		verify(second, timeout(1000)).sendMessage(any());
+		assertThat(registry.sessionCount()).isEqualTo(2);
+		assertThat(registry.userCount()).isEqualTo(1);
+
+		registry.unregister(7L, first);
+		assertThat(registry.sessionCount()).isEqualTo(1);
+		registry.unregister(7L, second);
+		assertThat(registry.userCount()).isZero();
+	}
+
+	@Test
+	void slowSessionDoesNotBlockCallerAndOverflowIsDropped() throws Exception {
+		WebSocketSessionRegistry registry = registry(16);
+		WebSocketSession slow = session("slow");
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(slow).sendMessage(any());
+		registry.register(1L, slow);
+
+		long start = System.nanoTime();
+		registry.send(1L, new TextMessage("0123456789"));
+		Thread.sleep(100);
+		registry.send(1L, new TextMessage("0123456789"));
+		while (bufferedBytes(registry) == 0 && System.nanoTime() - start < 1_000_000_000L) {
+			Thread.sleep(5);
+		}
+		registry.send(1L, new TextMessage("0123456789"));
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+		release.countDown();
+
+		assertThat(elapsedMillis).isLessThan(1000);
+		assertThat(meterRegistry.counter("websocket.messages", "result", "dropped").count()).isEqualTo(1);
+	}
+
+	@Test
+	void framesReachEachSessionInTheOrderTheyWereQueued() throws Exception {
+		WebSocketSessionRegistry registry = registry(1 << 20);
+		WebSocketSession session = session("ordered");
+		List<String> received = Collections.synchronizedList(new ArrayList<>());
+		doAnswer(invocation -> {
+			TextMessage message = invocation.getArgument(0);
+			if (received.size() % 7 == 0) {
+				Thread.sleep(1);
+			}
+			received.add(message.getPayload());
+			return null;
+		}).when(session).sendMessage(any());
+		registry.register(3L, session);
+
+		List<String> sent = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			sent.add("frame-" + i);
+			assertThat(registry.send(3L, new TextMessage("frame-" + i))).isTrue();
+		}
+
+		verify(session, timeout(5000).times(500)).sendMessage(any());
+		assertThat(received).containsExactlyElementsOf(sent);
+	}
+
+	@Test
+	void sessionOverTheBufferLimitIsClosedAndUnregisteredInTerminateMode() throws Exception {
+		WebSocketSessionRegistry registry = new WebSocketSessionRegistry(meterRegistry, 4, Duration.ofSeconds(10), 16,
+				"terminate");
+		WebSocketSession slow = session("slow");
+		WebSocketSession other = session("other");
+		CountDownLatch release = new CountDownLatch(1);
+		doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(slow).sendMessage(any());
+		registry.register(1L, slow);
+		registry.register(1L, other);
+
+		registry.send(1L, new TextMessage("0123456789"));
+		verify(slow, timeout(1000)).sendMessage(any());
+		verify(other, timeout(1000)).sendMessage(any());
+		registry.send(1L, new TextMessage("0123456789"));
+		verify(other, timeout(1000).times(2)).sendMessage(any());
+		registry.send(1L, new TextMessage("0123456789"));
+
+		verify(slow, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+		release.countDown();
+		assertThat(registry.sessionCount()).isEqualTo(1);
+		assertThat(meterRegistry.counter("websocket.sessions.terminated").count()).isEqualTo(1);
+		verify(other, never()).close(any());
+	}
+
+	private static long bufferedBytes(WebSocketSessionRegistry registry) {
+		long[] total = new long[1];
+		registry.forEachSession(session -> total[0] += session.pendingBytes());
+		return total[0];
+	}
+
+	private WebSocketSessionRegistry registry(int bufferSizeLimit) {
+		return new WebSocketSessionRegistry(meterRegistry, 4, Duration.ofSeconds(10), bufferSizeLimit, "drop");
+	}
+
+	private static WebSocketSession session(String id) {
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn(id);
+		when(session.isOpen()).thenReturn(true);
+		when(session.getAttributes()).thenReturn(new HashMap<>());
+		return session;
+	}
+}
@@ -0,0 +1,131 @@
+package com.online_library_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.online_library_service.dto.BookEvent;
+import com.online_library_service.enums.BookEventType;
+import com.online_library_service.enums.BookStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class BookEventCodecTest {
+
+	private static final int EVENTS = 200_000;
+
+	private final BookEventCodec codec = new BookEventCodec();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void roundTripsEveryField() {
+		BookEvent event = new BookEvent(BookEventType.BOOK_STATUS_CHANGED, 1_234_567_890L, "Cien años de soledad",
+				"Gabriel García Márquez", "Fiction", BookStatus.TAKEN);
+
+		assertThat(codec.deserialize("book.events", codec.serialize("book.events", event))).isEqualTo(event);
+	}
+
+	@Test
+	void keepsNullsAndEmptyStringsApart() {
+		BookEvent event = new BookEvent(BookEventType.BOOK_DELETED, 7L, "", null, "History", null);
+
+		assertThat(codec.deserialize("book.events", codec.serialize("book.events", event))).isEqualTo(event);
+	}
+
+	@Test
+	void rejectsUnknownVersionsAndTruncatedPayloads() {
+		byte[] bytes = codec.serialize("book.events", sample(1));
+
+		byte[] future = bytes.clone();
+		future[0] = 2;
+		assertThatThrownBy(() -> codec.deserialize("book.events", future)).isInstanceOf(SerializationException.class);
+
+		byte[] truncated = Arrays.copyOf(bytes, bytes.length - 3);
+		assertThatThrownBy(() -> codec.deserialize("book.events", truncated))
+				.isInstanceOf(SerializationException.class);
+	}
+
+	/**
+	 * Compares against the previous path: a HashMap written with ObjectMapper, sent as
+	 * a string and read back into a HashMap. Throughput is logged; only size is asserted.
+	 */
+	@Test
+	void consumerSkipsLegacyJsonRecordsInsteadOfFailingThePoll() {
+		byte[] legacy = "{\"type\":\"BOOK_ADDED\",\"bookId\":1}".getBytes(StandardCharsets.UTF_8);
+		BookEvent event = new BookEvent(BookEventType.BOOK_ADDED, 1L, "Title", "Author", "Fiction", null);
+
+		try (var deserializer = KafkaConfig.bookEventDeserializer()) {
+			assertThat(deserializer.deserialize("book.events", legacy)).isNull();
+			assertThat(deserializer.deserialize("book.events", codec.serialize("book.events", event))).isEqualTo(event);
+		}
+	}
+
+	@Test
+	void binaryEncodingIsSmallerAndFasterThanJson() throws Exception {
+		BookEvent event = sample(42);
+		int binaryBytes = codec.serialize("book.events", event).length;
+		int jsonBytes = objectMapper.writeValueAsString(asMap(event)).getBytes(StandardCharsets.UTF_8).length;
+
+		long binaryPerSecond = 0;
+		long jsonPerSecond = 0;
+		for (int round = 0; round < 3; round++) {
+			binaryPerSecond = measure(() -> {
+				long sink = 0;
+				for (int i = 0; i < EVENTS; i++) {
+					byte[] bytes = codec.serialize("book.events", sample(i));
+					sink += codec.deserialize("book.events", bytes).bookId();
+				}
+				return sink;
+			});
+			jsonPerSecond = measure(() -> {
+				long sink = 0;
+				for (int i = 0; i < EVENTS; i++) {
+					byte[] bytes = objectMapper.writeValueAsString(asMap(sample(i))).getBytes(StandardCharsets.UTF_8);
+					Map<?, ?> decoded = objectMapper.readValue(new String(bytes, StandardCharsets.UTF_8), HashMap.class);
+					sink += ((Number) decoded.get("bookId")).longValue();
+				}
+				return sink;
+			});
+		}
+		log.info("binary: {} bytes/event, {} events/s round trip", binaryBytes, binaryPerSecond);
+		log.info("json:   {} bytes/event, {} events/s round trip", jsonBytes, jsonPerSecond);
+
+		assertThat(binaryBytes).isLessThan(jsonBytes / 2);
+	}
+
+	private static BookEvent sample(long id) {
+		return new BookEvent(BookEventType.BOOK_UPDATED, id, "The Pragmatic Programmer", "Andrew Hunt",
+				"Software", BookStatus.AVAILABLE);
+	}
+
+	private static Map<String, Object> asMap(BookEvent event) {
+		Map<String, Object> map = new HashMap<>();
+		map.put("eventType", event.type().name());
+		map.put("bookId", event.bookId());
+		map.put("title", event.title());
+		map.put("author", event.author());
+		map.put("category", event.category());
+		map.put("status", event.status().name());
+		return map;
+	}
+
+	private static long measure(Workload workload) throws Exception {
+		long start = System.nanoTime();
+		long sink = workload.run();
+		long elapsedNanos = Math.max(1, System.nanoTime() - start);
+		assertThat(sink).isPositive();
+		return EVENTS * 1_000_000_000L / elapsedNanos;
+	}
+
+	@FunctionalInterface
+	private interface Workload {
+		long run() throws Exception;
+	}
+}
@@ -0,0 +1,41 @@
+package com.online_library_service.kafka;
+
+import com.online_library_service.dto.BookEvent;
+import com.online_library_service.enums.BookEventType;
+import com.online_library_service.enums.BookStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookEventConsumerTest {
+
+	@Test
+	void keepsOneEventPerBookWithItsLatestFields() {
+		List<BookEvent> batch = List.of(
+				event(BookEventType.BOOK_UPDATED, 1, "Old title", BookStatus.AVAILABLE),
+				event(BookEventType.BOOK_UPDATED, 2, "Other", BookStatus.AVAILABLE),
+				event(BookEventType.BOOK_STATUS_CHANGED, 1, "New title", BookStatus.TAKEN));
+
+		assertThat(BookEventConsumer.coalesce(batch)).containsExactly(
+				event(BookEventType.BOOK_STATUS_CHANGED, 1, "New title", BookStatus.TAKEN),
+				event(BookEventType.BOOK_UPDATED, 2, "Other", BookStatus.AVAILABLE));
+	}
+
+	@Test
+	void announcesBooksAddedInTheBatchAndSkipsOnesAlsoDeleted() {
+		List<BookEvent> batch = List.of(
+				event(BookEventType.BOOK_ADDED, 1, "Draft", BookStatus.AVAILABLE),
+				event(BookEventType.BOOK_ADDED, 2, "Gone", BookStatus.AVAILABLE),
+				event(BookEventType.BOOK_UPDATED, 1, "Final", BookStatus.AVAILABLE),
+				event(BookEventType.BOOK_DELETED, 2, "Gone", BookStatus.AVAILABLE));
+
+		assertThat(BookEventConsumer.coalesce(batch))
+				.containsExactly(event(BookEventType.BOOK_ADDED, 1, "Final", BookStatus.AVAILABLE));
+	}
+
+	private static BookEvent event(BookEventType type, long bookId, String title, BookStatus status) {
+		return new BookEvent(type, bookId, title, "Author", "Category", status);
+	}
+}
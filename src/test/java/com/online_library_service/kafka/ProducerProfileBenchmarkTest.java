@@ -0,0 +1,68 @@
+package com.online_library_service.kafka;
+
+import com.online_library_service.dto.BookEvent;
+import com.online_library_service.enums.BookEventType;
+import com.online_library_service.enums.BookStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Publish throughput of each {@link ProducerProfile} against an in-process broker.
+ * Numbers are logged rather than asserted; absolute values mean little on a shared
+ * machine, the ratio between profiles is what to look at.
+ */
+@Slf4j
+@EmbeddedKafka(partitions = 3, topics = ProducerProfileBenchmarkTest.TOPIC)
+class ProducerProfileBenchmarkTest {
+
+	static final String TOPIC = "book.events.bench";
+	private static final int EVENTS = 50_000;
+
+	@Test
+	void publishesEveryEventUnderEachProfile(EmbeddedKafkaBroker broker) {
+		for (ProducerProfile profile : ProducerProfile.values()) {
+			Map<String, Object> config = new HashMap<>(profile.settings());
+			config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+			DefaultKafkaProducerFactory<String, BookEvent> factory = new DefaultKafkaProducerFactory<>(config,
+					new StringSerializer(), new BookEventCodec());
+			KafkaTemplate<String, BookEvent> template = new KafkaTemplate<>(factory);
+			try {
+				publish(template, 5_000);
+				long start = System.nanoTime();
+				publish(template, EVENTS);
+				long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+				log.info("{}: {} events in {} ms, {} events/s", profile, EVENTS, elapsedMs,
+						EVENTS * 1000L / elapsedMs);
+			} finally {
+				factory.destroy();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void publish(KafkaTemplate<String, BookEvent> template, int count) {
+		CompletableFuture<SendResult<String, BookEvent>>[] sends = new CompletableFuture[count];
+		for (int i = 0; i < count; i++) {
+			BookEvent event = new BookEvent(BookEventType.BOOK_UPDATED, i, "Title " + i, "Author", "Category",
+					BookStatus.AVAILABLE);
+			sends[i] = template.send(TOPIC, Long.toString(event.bookId()), event);
+		}
+		CompletableFuture.allOf(sends).join();
+		for (CompletableFuture<SendResult<String, BookEvent>> send : sends) {
+			assertThat(send).isCompleted();
+		}
+	}
+}
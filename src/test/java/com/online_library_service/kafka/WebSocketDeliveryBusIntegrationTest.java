@@ -0,0 +1,132 @@
+package com.online_library_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.online_library_service.Service.NotificationWebSocketHandler;
+import com.online_library_service.Service.WebSocketSessionRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@EmbeddedKafka(partitions = 2, topics = WebSocketDeliveryBusIntegrationTest.TOPIC)
+class WebSocketDeliveryBusIntegrationTest {
+
+	static final String TOPIC = "ws.delivery";
+
+	private final List<KafkaMessageListenerContainer<String, String>> containers = new ArrayList<>();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private KafkaTemplate<String, String> kafkaTemplate;
+	private EmbeddedKafkaBroker broker;
+
+	@BeforeEach
+	void setUp(EmbeddedKafkaBroker broker) {
+		this.broker = broker;
+		Map<String, Object> producerProps = KafkaTestUtils.producerProps(broker);
+		kafkaTemplate = new KafkaTemplate<>(
+				new DefaultKafkaProducerFactory<>(producerProps, new StringSerializer(), new StringSerializer()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		containers.forEach(KafkaMessageListenerContainer::stop);
+	}
+
+	@Test
+	void framesReachSessionsOnWhicheverNodeHoldsThem() throws Exception {
+		Node nodeA = new Node();
+		Node nodeB = new Node();
+		WebSocketSession aliceOnA = nodeA.connect(1L, "a-1", "");
+		WebSocketSession bobOnB = nodeB.connect(2L, "b-1", "&category=History");
+		WebSocketSession carolOnB = nodeB.connect(3L, "b-2", "&category=Fiction");
+
+		nodeA.bus.sendToUser(2L, "{\"message\":\"due soon\"}");
+		verify(bobOnB, timeout(10_000)).sendMessage(any());
+
+		nodeB.bus.broadcast("Fiction", "Someone", "{\"message\":\"new book\"}");
+		verify(aliceOnA, timeout(10_000)).sendMessage(any());
+		verify(carolOnB, timeout(10_000)).sendMessage(any());
+		verify(bobOnB, after(500).times(1)).sendMessage(any());
+	}
+
+	@Test
+	void userFramesAreIgnoredByNodesWithoutThatUser() throws Exception {
+		Node nodeA = new Node();
+		Node nodeB = new Node();
+		WebSocketSession aliceOnA = nodeA.connect(1L, "a-1", "");
+		WebSocketSession bobOnB = nodeB.connect(2L, "b-1", "");
+
+		nodeB.bus.sendToUser(1L, "{}");
+
+		verify(aliceOnA, timeout(10_000)).sendMessage(any());
+		verify(bobOnB, after(500).never()).sendMessage(any());
+	}
+
+	/** One service instance: its own session registry, handler, bus and consumer group. */
+	private final class Node {
+
+		final NotificationWebSocketHandler handler;
+		final WebSocketDeliveryBus bus;
+
+		Node() {
+			SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+			WebSocketSessionRegistry registry = new WebSocketSessionRegistry(meterRegistry, 4,
+					Duration.ofSeconds(10), 1 << 16, "drop");
+			handler = new NotificationWebSocketHandler(registry, objectMapper, meterRegistry);
+			bus = new WebSocketDeliveryBus(kafkaTemplate, handler, objectMapper, meterRegistry, TOPIC);
+
+			Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("ws-delivery-" + UUID.randomUUID(),
+					"false", broker);
+			consumerProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+			ContainerProperties containerProperties = new ContainerProperties(TOPIC);
+			containerProperties.setMessageListener(
+					(MessageListener<String, String>) record -> bus.onDelivery(record.value()));
+			KafkaMessageListenerContainer<String, String> container = new KafkaMessageListenerContainer<>(
+					new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(),
+							new StringDeserializer()),
+					containerProperties);
+			container.start();
+			ContainerTestUtils.waitForAssignment(container, broker.getPartitionsPerTopic());
+			containers.add(container);
+		}
+
+		WebSocketSession connect(Long userId, String sessionId, String query) throws Exception {
+			WebSocketSession session = mock(WebSocketSession.class);
+			Map<String, Object> attributes = new HashMap<>();
+			when(session.getId()).thenReturn(sessionId);
+			when(session.isOpen()).thenReturn(true);
+			when(session.getUri()).thenReturn(URI.create("/ws/notifications?userId=" + userId + query));
+			when(session.getAttributes()).thenReturn(attributes);
+			handler.afterConnectionEstablished(session);
+			return session;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.online_library_service.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class NotificationTemplateTest {
+
+	private static final List<String> PARAMS = List.of("title", "author");
+
+	@Test
+	void rendersLiteralsAndParametersInOrder() {
+		NotificationTemplate template = NotificationTemplate.compile("'{title}' by {author}, again {title}.", PARAMS);
+
+		assertThat(template.render("Dune", "Frank Herbert")).isEqualTo("'Dune' by Frank Herbert, again Dune.");
+		assertThat(template.render("Emma", null)).isEqualTo("'Emma' by null, again Emma.");
+		assertThat(NotificationTemplate.compile("no placeholders", PARAMS).render()).isEqualTo("no placeholders");
+	}
+
+	@Test
+	void escapesJsonAndKeepsDoubledBracesLiteral() {
+		NotificationTemplate template = NotificationTemplate.compile("{{\"message\":\"Added: {title|json}\"}}", PARAMS);
+
+		assertThat(template.render("The \"Quoted\"\\Path\n", "x"))
+				.isEqualTo("{\"message\":\"Added: The \\\"Quoted\\\"\\\\Path\\n\"}");
+	}
+
+	@Test
+	void rejectsUnknownOrMalformedPlaceholdersAtCompileTime() {
+		assertThatThrownBy(() -> NotificationTemplate.compile("Hi {name}", PARAMS))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("{name}");
+		assertThatThrownBy(() -> NotificationTemplate.compile("Hi {title", PARAMS))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> NotificationTemplate.compile("Hi }", PARAMS))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void bundledTemplatesMatchPreviousMessages() {
+		NotificationTemplates templates = new NotificationTemplates();
+
+		RenderedNotification added = templates.render(NotificationType.BOOK_ADDED, "Dune", "Frank Herbert", "Sci-Fi",
+				"AVAILABLE");
+		assertThat(added.subject()).isEqualTo("New Book Added: Dune");
+		assertThat(added.body()).isEqualTo(String.format(
+				"A new book has been added to the library!\n\nTitle: %s\nAuthor: %s\nCategory: %s\n\nCheck it out in your library account.",
+				"Dune", "Frank Herbert", "Sci-Fi"));
+		assertThat(added.websocket()).isEqualTo("{\"message\":\"New book added: Dune\"}");
+
+		LocalDate end = LocalDate.of(2026, 1, 31);
+		RenderedNotification welcome = templates.render(NotificationType.WELCOME, "Ada", end);
+		assertThat(welcome.body()).isEqualTo(String.format(
+				"Hi %s,\n\nWelcome to the library! Your membership is valid until %s.\n\nEnjoy reading!\n\nRegards,\nLibrary Team",
+				"Ada", end));
+		assertThat(welcome.websocket()).isNull();
+	}
+
+	@Test
+	void renderCostComparedWithStringFormat() {
+		NotificationTemplates templates = new NotificationTemplates();
+		String format = "The book details have been updated.\n\nTitle: %s\nAuthor: %s\nCategory: %s\nStatus: %s";
+		int iterations = 200_000;
+		long sink = 0;
+
+		for (int i = 0; i < iterations; i++) {
+			sink += templates.render(NotificationType.BOOK_UPDATED, "Dune", "Frank Herbert", "Sci-Fi", "TAKEN").body()
+					.length();
+			sink += String.format(format, "Dune", "Frank Herbert", "Sci-Fi", "TAKEN").length();
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += templates.render(NotificationType.BOOK_UPDATED, "Dune", "Frank Herbert", "Sci-Fi", "TAKEN").body()
+					.length();
+		}
+		long templateNs = (System.nanoTime() - start) / iterations;
+
+		start = System.nanoTime();
+		for (int i = 0; i < iterations; i++) {
+			sink += String.format(format, "Dune", "Frank Herbert", "Sci-Fi", "TAKEN").length();
+		}
+		long formatNs = (System.nanoTime() - start) / iterations;
+
+		log.info("Render cost per message (subject + body + frame vs body only): template {} ns, String.format {} ns",
+				templateNs, formatNs);
+		assertThat(sink).isPositive();
+	}
+}
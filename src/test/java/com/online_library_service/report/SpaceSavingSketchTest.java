@@ -0,0 +1,99 @@
+package com.online_library_service.report;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingSketchTest {
+
+	@Test
+	void isExactWhileDistinctIdsFitInCapacity() {
+		SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+		sketch.offer(1, 5);
+		sketch.offer(2, 1);
+		sketch.offer(3, 3);
+		sketch.offer(2, 1);
+
+		assertThat(sketch.top(10)).containsExactly(
+				new HeavyHitter(1, 5, 0), new HeavyHitter(3, 3, 0), new HeavyHitter(2, 2, 0));
+		assertThat(sketch.top(1)).containsExactly(new HeavyHitter(1, 5, 0));
+		assertThat(sketch.floor()).isZero();
+	}
+
+	@Test
+	void evictsSmallestCounterAndCarriesItAsError() {
+		SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+		sketch.offer(1, 10);
+		sketch.offer(2, 3);
+		sketch.offer(3, 1);
+
+		assertThat(sketch.top(2)).containsExactly(new HeavyHitter(1, 10, 0), new HeavyHitter(3, 4, 3));
+		assertThat(sketch.floor()).isEqualTo(4);
+	}
+
+	@Test
+	void estimatesBoundTrueCountsOnSkewedStream() {
+		Random random = new Random(7);
+		int capacity = 50;
+		SpaceSavingSketch sketch = new SpaceSavingSketch(capacity);
+		Map<Long, Long> exact = new HashMap<>();
+		long total = 0;
+
+		for (int i = 0; i < 20_000; i++) {
+			long id = zipf(random, 2_000);
+			sketch.offer(id, 1);
+			exact.merge(id, 1L, Long::sum);
+			total++;
+		}
+
+		assertBounds(sketch.top(capacity), exact);
+		long threshold = total / capacity;
+		List<Long> tracked = sketch.top(capacity).stream().map(HeavyHitter::id).toList();
+		exact.forEach((id, count) -> {
+			if (count > threshold) {
+				assertThat(tracked).contains(id);
+			}
+		});
+	}
+
+	@Test
+	void mergedWindowKeepsUpperBoundGuarantee() {
+		Random random = new Random(11);
+		List<SpaceSavingSketch> days = new ArrayList<>();
+		Map<Long, Long> exact = new HashMap<>();
+
+		for (int d = 0; d < 7; d++) {
+			SpaceSavingSketch day = new SpaceSavingSketch(20);
+			for (int i = 0; i < 3_000; i++) {
+				long id = zipf(random, 500);
+				day.offer(id, 1);
+				exact.merge(id, 1L, Long::sum);
+			}
+			days.add(day);
+		}
+
+		List<HeavyHitter> top = SpaceSavingSketch.top(days, 5);
+		assertThat(top).hasSize(5);
+		assertBounds(top, exact);
+		assertThat(top.get(0).id()).isEqualTo(exact.entrySet().stream()
+				.max(Map.Entry.comparingByValue()).orElseThrow().getKey());
+	}
+
+	private static void assertBounds(List<HeavyHitter> estimates, Map<Long, Long> exact) {
+		for (HeavyHitter h : estimates) {
+			long actual = exact.getOrDefault(h.id(), 0L);
+			assertThat(h.count()).isGreaterThanOrEqualTo(actual);
+			assertThat(h.count() - h.error()).isLessThanOrEqualTo(actual);
+		}
+	}
+
+	private static long zipf(Random random, int n) {
+		return (long) Math.floor(Math.pow(n, random.nextDouble())) - 1;
+	}
+}
@@ -0,0 +1,91 @@
+package com.online_library_service.scheduler;
+
+import com.online_library_service.Service.BorrowRollupService;
+import com.online_library_service.dto.PendingRollup;
+import com.online_library_service.repository.UserBookHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BorrowRollupAggregatorTest {
+
+	private final UserBookHistoryRepository historyRepository = mock(UserBookHistoryRepository.class);
+	private final BorrowRollupService rollupService = mock(BorrowRollupService.class);
+	private final CacheManager cacheManager = mock(CacheManager.class);
+	private final Cache reportsCache = mock(Cache.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final BorrowRollupAggregator aggregator = new BorrowRollupAggregator(historyRepository, rollupService,
+			new TransactionTemplate(mock(PlatformTransactionManager.class)), cacheManager, meterRegistry, 2);
+
+	@BeforeEach
+	void setUp() {
+		when(cacheManager.getCache("reports")).thenReturn(reportsCache);
+	}
+
+	@Test
+	void drainsPendingBorrowsUntilAShortBatchAndEvictsTopCategoriesOnce() {
+		List<PendingRollup> first = borrows(1, 2);
+		List<PendingRollup> second = borrows(3, 3);
+		when(historyRepository.claimPendingRollups(2)).thenReturn(first, second);
+
+		aggregator.aggregate();
+
+		verify(rollupService).applyBorrows(first);
+		verify(rollupService).applyBorrows(second);
+		verify(historyRepository, times(2)).claimPendingRollups(2);
+		verify(reportsCache).evict("topCategories");
+		assertThat(meterRegistry.counter("reports.rollup.aggregated").count()).isEqualTo(3);
+	}
+
+	@Test
+	void leavesTheCacheAloneWhenNothingIsPending() {
+		when(historyRepository.claimPendingRollups(2)).thenReturn(List.of());
+
+		aggregator.aggregate();
+
+		verify(reportsCache, never()).evict(any());
+	}
+
+	@Test
+	void failedBatchIsCountedAndLeftForTheNextPoll() {
+		when(historyRepository.claimPendingRollups(2)).thenReturn(borrows(1, 2));
+		doThrow(new QueryTimeoutException("lock timeout"))
+				.when(rollupService).applyBorrows(any());
+
+		aggregator.aggregate();
+
+		assertThat(meterRegistry.counter("reports.rollup.failed.batches").count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("reports.rollup.aggregated").count()).isZero();
+		verify(reportsCache, never()).evict(any());
+	}
+
+	private static List<PendingRollup> borrows(long fromId, long toId) {
+		return LongStream.rangeClosed(fromId, toId).mapToObj(BorrowRollupAggregatorTest::borrow).toList();
+	}
+
+	private static PendingRollup borrow(long bookId) {
+		return new Borrow(1L, "Reader", bookId, "Title " + bookId, "Fiction", LocalDate.now());
+	}
+
+	private record Borrow(Long getUserId, String getUserName, Long getBookId, String getTitle, String getCategory,
+			LocalDate getTakenDate) implements PendingRollup {
+	}
+}
@@ -0,0 +1,127 @@
+package com.online_library_service.scheduler;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.online_library_service.Service.NotificationService;
+import com.online_library_service.entity.EmailOutbox;
+import com.online_library_service.enums.EmailStatus;
+import com.online_library_service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxDispatcherTest {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+
+	@Test
+	void sendsLeasedBatchOverSmtpAndMarksRowsSent() throws Exception {
+		EmailOutboxDispatcher dispatcher = dispatcher(greenMail.getSmtp().getPort());
+		List<EmailOutbox> batch = new ArrayList<>();
+		for (long id = 1; id <= 10; id++) {
+			batch.add(row(id, "reader" + id + "@example.com", 1));
+		}
+		batch.add(row(11, "a@example.com,b@example.com,c@example.com", 1));
+
+		dispatcher.dispatch(batch);
+
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertThat(received).hasSize(13);
+		assertThat(received[0].getSubject()).isEqualTo("Subject");
+
+		List<Long> sentIds = new ArrayList<>();
+		org.mockito.ArgumentCaptor<Collection<Long>> ids = captor();
+		verify(repository, org.mockito.Mockito.atLeastOnce()).markSent(ids.capture(), any(LocalDateTime.class));
+		ids.getAllValues().forEach(sentIds::addAll);
+		assertThat(sentIds).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L);
+		verify(repository, never()).markFailed(any(), any(), any(), anyString());
+	}
+
+	@Test
+	void unreachableServerReschedulesWithBackoffThenGivesUp() {
+		EmailOutboxDispatcher dispatcher = dispatcher(1);
+
+		dispatcher.dispatch(List.of(row(1, "reader@example.com", 1), row(2, "reader@example.com", 6)));
+
+		verify(repository).markFailed(eq(1L), eq(EmailStatus.PENDING), any(LocalDateTime.class), anyString());
+		verify(repository).markFailed(eq(2L), eq(EmailStatus.DEAD), any(LocalDateTime.class), anyString());
+		verify(repository, never()).markSent(any(), any());
+	}
+
+	@Test
+	void backoffDoublesUpToTheCap() {
+		EmailOutboxDispatcher dispatcher = dispatcher(1);
+
+		assertThat(dispatcher.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+		assertThat(dispatcher.backoff(2)).isEqualTo(Duration.ofSeconds(60));
+		assertThat(dispatcher.backoff(4)).isEqualTo(Duration.ofSeconds(240));
+		assertThat(dispatcher.backoff(30)).isEqualTo(Duration.ofHours(1));
+	}
+
+	@Test
+	void purgesFinishedRowsInBatchesUntilAShortOne() {
+		EmailOutboxDispatcher dispatcher = dispatcher(1);
+		when(repository.deleteFinishedBefore(any(LocalDateTime.class), any(LocalDateTime.class), eq(2)))
+				.thenReturn(2, 2, 1);
+
+		dispatcher.purgeFinished();
+
+		org.mockito.ArgumentCaptor<LocalDateTime> sentBefore = org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
+		org.mockito.ArgumentCaptor<LocalDateTime> deadBefore = org.mockito.ArgumentCaptor.forClass(LocalDateTime.class);
+		verify(repository, times(3)).deleteFinishedBefore(sentBefore.capture(), deadBefore.capture(), eq(2));
+		assertThat(sentBefore.getValue()).isBefore(LocalDateTime.now().minusDays(6));
+		assertThat(deadBefore.getValue()).isEqualTo(sentBefore.getValue().minusDays(23));
+	}
+
+	private EmailOutboxDispatcher dispatcher(int smtpPort) {
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(smtpPort);
+		NotificationService notificationService = new NotificationService(mailSender, null, 4);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+		return new EmailOutboxDispatcher(repository, notificationService, transactionTemplate, Runnable::run,
+				new SimpleMeterRegistry(), 500, 4, 6, Duration.ofSeconds(30), Duration.ofHours(1),
+				Duration.ofMinutes(5), Duration.ofDays(7), Duration.ofDays(30), 2);
+	}
+
+	private static EmailOutbox row(long id, String recipients, int attempts) {
+		EmailOutbox row = new EmailOutbox();
+		row.setId(id);
+		row.setRecipients(recipients);
+		row.setSubject("Subject");
+		row.setBody("Body");
+		row.setStatus(EmailStatus.SENDING);
+		row.setAttempts(attempts);
+		row.setNextAttemptAt(LocalDateTime.now());
+		row.setCreatedAt(LocalDateTime.now());
+		return row;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static org.mockito.ArgumentCaptor<Collection<Long>> captor() {
+		return (org.mockito.ArgumentCaptor) org.mockito.ArgumentCaptor.forClass(Collection.class);
+	}
+}
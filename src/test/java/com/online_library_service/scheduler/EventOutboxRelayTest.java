@@ -0,0 +1,114 @@
+package com.online_library_service.scheduler;
+
+import com.online_library_service.entity.EventOutbox;
+import com.online_library_service.entity.OutboxCursor;
+import com.online_library_service.repository.EventOutboxRepository;
+import com.online_library_service.repository.OutboxCursorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventOutboxRelayTest {
+
+	private final EventOutboxRepository outboxRepository = mock(EventOutboxRepository.class);
+	private final OutboxCursorRepository cursorRepository = mock(OutboxCursorRepository.class);
+	@SuppressWarnings("unchecked")
+	private final KafkaTemplate<String, byte[]> kafkaTemplate = mock(KafkaTemplate.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final EventOutboxRelay relay = new EventOutboxRelay(outboxRepository, cursorRepository, kafkaTemplate,
+			new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry, 3,
+			Duration.ofSeconds(5), Duration.ofDays(1), Duration.ofMinutes(1), "node-a");
+
+	@Test
+	void publishesInCursorOrderAndAdvancesTheHighWaterMark() {
+		when(cursorRepository.tryLease(eq(EventOutboxRelay.CURSOR), startsWith("node-a-"), eq(60)))
+				.thenReturn(Optional.of(cursor(100, 7)));
+		when(cursorRepository.advance(eq(EventOutboxRelay.CURSOR), anyString(), anyLong(), anyLong())).thenReturn(1);
+		when(outboxRepository.findPublishable(100, 7, 3))
+				.thenReturn(List.of(row(8, 101, "book.events", "1"), row(9, 101, "book.events", "2"),
+						row(5, 102, "membership.expired", "42")));
+		when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+		assertThat(relay.relayBatch()).isEqualTo(3);
+
+		InOrder order = inOrder(kafkaTemplate, cursorRepository);
+		order.verify(kafkaTemplate).send("book.events", "1", new byte[] { 8 });
+		order.verify(kafkaTemplate).send("book.events", "2", new byte[] { 9 });
+		order.verify(kafkaTemplate).send("membership.expired", "42", new byte[] { 5 });
+		order.verify(cursorRepository).advance(eq(EventOutboxRelay.CURSOR), startsWith("node-a-"), eq(102L), eq(5L));
+		assertThat(meterRegistry.counter("events.outbox.published").count()).isEqualTo(3);
+	}
+
+	@Test
+	void failedSendLeavesTheCursorForAnotherAttempt() {
+		when(cursorRepository.tryLease(anyString(), anyString(), anyInt())).thenReturn(Optional.of(cursor(0, 0)));
+		when(outboxRepository.findPublishable(0, 0, 3)).thenReturn(List.of(row(1, 10, "book.events", "1")));
+		when(kafkaTemplate.send(anyString(), anyString(), any()))
+				.thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+		relay.relay();
+
+		verify(cursorRepository, never()).advance(anyString(), anyString(), anyLong(), anyLong());
+		assertThat(meterRegistry.counter("events.outbox.failed.batches").count()).isEqualTo(1);
+	}
+
+	@Test
+	void batchIsNotCountedWhenTheLeaseLapsedBeforeTheCursorMoved() {
+		when(cursorRepository.tryLease(anyString(), anyString(), anyInt())).thenReturn(Optional.of(cursor(0, 0)));
+		when(outboxRepository.findPublishable(0, 0, 3)).thenReturn(List.of(row(1, 10, "book.events", "1")));
+		when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+		when(cursorRepository.advance(anyString(), anyString(), anyLong(), anyLong())).thenReturn(0);
+
+		assertThat(relay.relayBatch()).isZero();
+
+		assertThat(meterRegistry.counter("events.outbox.published").count()).isZero();
+	}
+
+	@Test
+	void skipsThePollWhileAnotherNodeHoldsTheCursor() {
+		when(cursorRepository.tryLease(anyString(), anyString(), anyInt())).thenReturn(Optional.empty());
+
+		assertThat(relay.relayBatch()).isZero();
+
+		verify(outboxRepository, never()).findPublishable(anyLong(), anyLong(), anyInt());
+	}
+
+	private static OutboxCursor cursor(long txId, long id) {
+		OutboxCursor cursor = new OutboxCursor();
+		cursor.setName(EventOutboxRelay.CURSOR);
+		cursor.setLastTxId(txId);
+		cursor.setLastId(id);
+		return cursor;
+	}
+
+	private static EventOutbox row(long id, long txId, String topic, String key) {
+		EventOutbox row = new EventOutbox();
+		row.setId(id);
+		row.setTxId(txId);
+		row.setTopic(topic);
+		row.setEventKey(key);
+		row.setPayload(new byte[] { (byte) id });
+		return row;
+	}
+}
@@ -0,0 +1,67 @@
+package com.online_library_service.scheduler;
+
+import com.online_library_service.dto.ExpiredMember;
+import com.online_library_service.dto.UserExpiryEvent;
+import com.online_library_service.kafka.MembershipEventProducer;
+import com.online_library_service.repository.UserRepository;
+import com.online_library_service.security.UserStatusCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MembershipSchedulerTest {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final MembershipEventProducer eventProducer = mock(MembershipEventProducer.class);
+	private final UserStatusCache userStatusCache = mock(UserStatusCache.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void drainsChunksUntilAShortOneAndQueuesOneBatchPerChunk() {
+		MembershipScheduler scheduler = new MembershipScheduler(userRepository, eventProducer, userStatusCache,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), Runnable::run, meterRegistry, 3, 2);
+		when(userRepository.expireLapsedMembers(any(LocalDate.class), eq(3)))
+				.thenReturn(members(1, 3), members(4, 6), members(7, 7), List.of());
+
+		scheduler.checkExpiredMemberships();
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<UserExpiryEvent>> batches = ArgumentCaptor.forClass(List.class);
+		verify(eventProducer, times(3)).publishExpiryEvents(batches.capture());
+		List<Long> userIds = new ArrayList<>();
+		batches.getAllValues().forEach(batch -> batch.forEach(event -> userIds.add(event.getUserId())));
+		assertThat(userIds).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+		verify(userStatusCache).evictAll(List.of(1L, 2L, 3L));
+		verify(userStatusCache).evictAll(List.of(7L));
+		assertThat(meterRegistry.counter("membership.expiry.users").count()).isEqualTo(7);
+		assertThat(meterRegistry.timer("membership.expiry.chunk.duration").count()).isEqualTo(4);
+		assertThat(meterRegistry.timer("membership.expiry.run.duration").count()).isEqualTo(1);
+	}
+
+	private static List<ExpiredMember> members(long fromId, long toId) {
+		return LongStream.rangeClosed(fromId, toId).mapToObj(MembershipSchedulerTest::member).toList();
+	}
+
+	private static ExpiredMember member(long id) {
+		return new Member(id, "user" + id + "@example.com", "User " + id, LocalDate.now().minusDays(1));
+	}
+
+	private record Member(Long getId, String getEmail, String getName, LocalDate getMembershipEndDate)
+			implements ExpiredMember {
+	}
+}
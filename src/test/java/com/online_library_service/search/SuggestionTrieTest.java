@@ -0,0 +1,83 @@
+package com.online_library_service.search;
+
+import com.online_library_service.enums.SuggestionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+	@Test
+	void returnsHeaviestCompletionsForPrefix() {
+		SuggestionTrie trie = new SuggestionTrie(3);
+		trie.add("Harry Potter", SuggestionType.TITLE, 50);
+		trie.add("Hamlet", SuggestionType.TITLE, 10);
+		trie.add("Harper Lee", SuggestionType.AUTHOR, 20);
+		trie.add("History", SuggestionType.CATEGORY, 5);
+		trie.add("Dune", SuggestionType.TITLE, 100);
+
+		assertThat(texts(trie.suggest("ha", 10))).containsExactly("Harry Potter", "Harper Lee", "Hamlet");
+		assertThat(texts(trie.suggest("HAR", 1))).containsExactly("Harry Potter");
+		assertThat(texts(trie.suggest("harpe", 10))).containsExactly("Harper Lee");
+		assertThat(trie.suggest("hx", 10)).isEmpty();
+		assertThat(trie.suggest("ha", -1)).isEmpty();
+	}
+
+	@Test
+	void reranksOnWeightChangesAndRemovals() {
+		SuggestionTrie trie = new SuggestionTrie(2);
+		trie.add("Fantasy", SuggestionType.CATEGORY, 1);
+		trie.add("Fantasy", SuggestionType.CATEGORY, 1);
+		trie.add("Fables", SuggestionType.TITLE, 3);
+
+		assertThat(texts(trie.suggest("fa", 2))).containsExactly("Fables", "Fantasy");
+
+		trie.addWeight("Fantasy", SuggestionType.CATEGORY, 5);
+		assertThat(texts(trie.suggest("fa", 2))).containsExactly("Fantasy", "Fables");
+
+		trie.remove("Fantasy", SuggestionType.CATEGORY, 1);
+		assertThat(texts(trie.suggest("fan", 2))).containsExactly("Fantasy");
+
+		trie.remove("Fantasy", SuggestionType.CATEGORY, 6);
+		assertThat(trie.suggest("fan", 2)).isEmpty();
+		assertThat(texts(trie.suggest("f", 2))).containsExactly("Fables");
+	}
+
+	@Test
+	void matchesBruteForceUnderRandomUpdates() {
+		Random random = new Random(42);
+		SuggestionTrie trie = new SuggestionTrie(5);
+		Map<String, Long> expected = new HashMap<>();
+		String[] words = { "a", "ab", "abc", "abd", "b", "ba", "bab", "abcd", "bb", "aab" };
+
+		for (int i = 0; i < 2000; i++) {
+			String word = words[random.nextInt(words.length)];
+			long weight = 1 + random.nextInt(20);
+			if (expected.containsKey(word) && random.nextBoolean()) {
+				trie.remove(word, SuggestionType.TITLE, expected.remove(word));
+			} else if (!expected.containsKey(word)) {
+				trie.add(word, SuggestionType.TITLE, weight);
+				expected.put(word, weight);
+			}
+
+			for (String prefix : new String[] { "", "a", "ab", "abc", "b", "ba" }) {
+				List<String> want = new ArrayList<>(expected.keySet().stream().filter(w -> w.startsWith(prefix))
+						.sorted(Comparator.<String>comparingLong(expected::get).reversed()
+								.thenComparing(Comparator.naturalOrder()))
+						.limit(5).toList());
+				assertThat(texts(trie.suggest(prefix, 5))).as("prefix '%s'", prefix).isEqualTo(want);
+			}
+		}
+	}
+
+	private static List<String> texts(List<SuggestionTrie.Entry> entries) {
+		return entries.stream().map(e -> e.text).toList();
+	}
+}
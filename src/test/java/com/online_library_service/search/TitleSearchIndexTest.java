@@ -0,0 +1,85 @@
+package com.online_library_service.search;
+
+import com.online_library_service.entity.Book;
+import com.online_library_service.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TitleSearchIndexTest {
+
+	private TitleSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		BookRepository repository = mock(BookRepository.class);
+		when(repository.findByActiveTrue()).thenReturn(List.of(
+				book(1L, "The Hobbit"),
+				book(2L, "The Lord of the Rings"),
+				book(3L, "Dune")));
+		index = new TitleSearchIndex(repository);
+		index.rebuild();
+	}
+
+	@Test
+	void findsSubstringMatchesIgnoringCase() {
+		assertThat(index.search("THE")).containsExactly(1L, 2L);
+		assertThat(index.search("of the r")).containsExactly(2L);
+		assertThat(index.search("bbit")).containsExactly(1L);
+		assertThat(index.search("missing")).isEmpty();
+	}
+
+	@Test
+	void answersShortQueriesByScanning() {
+		assertThat(index.search("du")).containsExactly(3L);
+		assertThat(index.search("e")).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	void keepsIndexCurrentOnUpdateAndRemove() {
+		index.index(3L, "Dune Messiah");
+		assertThat(index.search("messiah")).containsExactly(3L);
+
+		index.index(1L, "There and Back Again");
+		assertThat(index.search("hobbit")).isEmpty();
+		assertThat(index.search("back again")).containsExactly(1L);
+
+		index.remove(2L);
+		assertThat(index.search("rings")).isEmpty();
+		assertThat(index.search("the")).containsExactly(1L);
+	}
+
+	@Test
+	void keepsUpdatesMadeWhileARebuildIsReadingTheCatalog() {
+		BookRepository repository = mock(BookRepository.class);
+		TitleSearchIndex rebuilding = new TitleSearchIndex(repository);
+		when(repository.findByActiveTrue()).thenAnswer(invocation -> {
+			rebuilding.index(4L, "Neuromancer");
+			rebuilding.remove(1L);
+			rebuilding.index(2L, "The Two Towers");
+			return List.of(book(1L, "The Hobbit"), book(2L, "The Lord of the Rings"));
+		});
+
+		rebuilding.rebuild();
+
+		assertThat(rebuilding.search("neuromancer")).containsExactly(4L);
+		assertThat(rebuilding.search("hobbit")).isEmpty();
+		assertThat(rebuilding.search("rings")).isEmpty();
+		assertThat(rebuilding.search("towers")).containsExactly(2L);
+
+		rebuilding.index(5L, "Foundation");
+		assertThat(rebuilding.search("foundation")).containsExactly(5L);
+	}
+
+	private static Book book(Long id, String title) {
+		Book book = new Book();
+		book.setId(id);
+		book.setTitle(title);
+		return book;
+	}
+}
@@ -0,0 +1,45 @@
+package com.online_library_service.security;
+
+import com.online_library_service.entity.User;
+import com.online_library_service.enums.Role;
+import com.online_library_service.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomUserDetailsServiceTest {
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final CustomUserDetailsService service = new CustomUserDetailsService(userRepository);
+
+	@Test
+	void weakerHashIsRehashedAtTheCurrentCostOnLogin() {
+		User user = new User();
+		user.setId(7L);
+		user.setEmail("reader@example.com");
+		user.setRole(Role.USER);
+		user.setActive(true);
+		user.setPassword(new BCryptPasswordEncoder(4).encode("secret"));
+		when(userRepository.findByEmail("reader@example.com")).thenReturn(Optional.of(user));
+
+		BCryptPasswordEncoder current = new BCryptPasswordEncoder(6);
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider(service);
+		provider.setPasswordEncoder(current);
+		provider.setUserDetailsPasswordService(service);
+
+		provider.authenticate(new UsernamePasswordAuthenticationToken("reader@example.com", "secret"));
+
+		verify(userRepository).save(user);
+		assertThat(user.getPassword()).startsWith("$2a$06$");
+		assertThat(current.matches("secret", user.getPassword())).isTrue();
+		assertThat(current.upgradeEncoding(user.getPassword())).isFalse();
+	}
+}
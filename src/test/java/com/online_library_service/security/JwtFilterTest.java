@@ -0,0 +1,145 @@
+package com.online_library_service.security;
+
+import com.online_library_service.entity.User;
+import com.online_library_service.enums.Role;
+import com.online_library_service.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtFilterTest {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+
+	private final UserRepository userRepository = mock(UserRepository.class);
+	private final UserDetailsService userDetailsService = mock(UserDetailsService.class);
+	private final UserStatusCache userStatusCache = new UserStatusCache(userRepository, new ConcurrentMapCacheManager());
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+	private TokenRevocationList revocationList;
+	private JwtUtil jwtUtil;
+	private JwtFilter filter;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+		ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+		jwtUtil.init();
+		when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+		revocationList = new TokenRevocationList(redisTemplate, new SimpleMeterRegistry(), "auth:revocations",
+				Duration.ofMinutes(15), 1_000, 0.01, 60_000L);
+		filter = new JwtFilter(jwtUtil, userDetailsService, userStatusCache, revocationList);
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void authenticatesFromClaimsAndLoadsTheUserOnlyOnce() throws Exception {
+		when(userRepository.findById(7L)).thenReturn(Optional.of(user(7L, "reader@example.com", Role.ADMIN, true)));
+		String token = jwtUtil.generateToken("reader@example.com", "ADMIN", 7L);
+
+		for (int i = 0; i < 3; i++) {
+			Authentication authentication = filter(token);
+			assertThat(authentication.getName()).isEqualTo("reader@example.com");
+			assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+					.containsExactly("ROLE_ADMIN");
+		}
+		verify(userRepository, times(1)).findById(7L);
+		verify(userDetailsService, never()).loadUserByUsername(anyString());
+	}
+
+	@Test
+	void deactivatedUserIsRejectedOnceTheStatusIsEvicted() throws Exception {
+		when(userRepository.findById(7L)).thenReturn(Optional.of(user(7L, "reader@example.com", Role.USER, true)),
+				Optional.of(user(7L, "reader@example.com", Role.USER, false)));
+		String token = jwtUtil.generateToken("reader@example.com", "USER", 7L);
+
+		assertThat(filter(token)).isNotNull();
+		userStatusCache.evict(7L);
+		assertThat(filter(token)).isNull();
+	}
+
+	@Test
+	void tokenWithoutUserIdFallsBackToTheUserDetailsService() throws Exception {
+		when(userDetailsService.loadUserByUsername("reader@example.com")).thenReturn(
+				org.springframework.security.core.userdetails.User.withUsername("reader@example.com")
+						.password("x").roles("USER").build());
+		String legacy = Jwts.builder().claim("role", "USER").setSubject("reader@example.com")
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256).compact();
+
+		assertThat(filter(legacy).getName()).isEqualTo("reader@example.com");
+		verify(userRepository, never()).findById(7L);
+	}
+
+	@Test
+	void loggedOutTokenIsRejectedWithoutTouchingTheDatabase() throws Exception {
+		when(userRepository.findById(7L)).thenReturn(Optional.of(user(7L, "reader@example.com", Role.USER, true)));
+		String token = jwtUtil.generateToken("reader@example.com", "USER", 7L);
+		String otherSession = jwtUtil.generateToken("reader@example.com", "USER", 7L);
+		when(redisTemplate.hasKey(TokenRevocationList.TOKEN_PREFIX + jwtUtil.extractClaims(token).getId()))
+				.thenReturn(true);
+
+		revocationList.revokeToken(jwtUtil.extractClaims(token));
+
+		assertThat(filter(token)).isNull();
+		assertThat(filter(otherSession)).isNotNull();
+		verify(userRepository, times(1)).findById(7L);
+	}
+
+	@Test
+	void tamperedTokenLeavesTheRequestUnauthenticated() throws Exception {
+		String token = jwtUtil.generateToken("reader@example.com", "USER", 7L);
+
+		assertThat(filter(token.substring(0, token.length() - 2) + "xx")).isNull();
+		verify(userRepository, never()).findById(7L);
+	}
+
+	private Authentication filter(String token) throws Exception {
+		SecurityContextHolder.clearContext();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("Authorization", "Bearer " + token);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return SecurityContextHolder.getContext().getAuthentication();
+	}
+
+	private static User user(Long id, String email, Role role, boolean active) {
+		User user = new User();
+		user.setId(id);
+		user.setEmail(email);
+		user.setRole(role);
+		user.setActive(active);
+		return user;
+	}
+}
@@ -0,0 +1,98 @@
+package com.online_library_service.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class JwtUtilTest {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+	private static final int REQUESTS = 10_000;
+
+	private final Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+	private JwtUtil jwtUtil;
+
+	@BeforeEach
+	void setUp() {
+		jwtUtil = new JwtUtil();
+		ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+		ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+		jwtUtil.init();
+	}
+
+	@Test
+	void repeatedTokenIsServedFromTheCache() {
+		String token = jwtUtil.generateToken("reader@example.com", "USER", 7L);
+
+		Claims first = jwtUtil.extractClaims(token);
+
+		assertThat(jwtUtil.extractClaims(token)).isSameAs(first);
+		assertThat(jwtUtil.extractEmail(token)).isEqualTo("reader@example.com");
+		assertThat(jwtUtil.extractRole(token)).isEqualTo("USER");
+		assertThat(jwtUtil.extractUserId(first)).isEqualTo(7L);
+	}
+
+	@Test
+	void tamperedAndExpiredTokensAreRejectedEveryTime() {
+		String token = jwtUtil.generateToken("reader@example.com", "USER", 7L);
+		String tampered = token.substring(0, token.length() - 2) + "xx";
+		String expired = Jwts.builder().setSubject("reader@example.com")
+				.setExpiration(new Date(System.currentTimeMillis() - 1_000)).signWith(key, SignatureAlgorithm.HS256)
+				.compact();
+
+		for (int i = 0; i < 2; i++) {
+			assertThat(jwtUtil.validateToken(tampered)).isFalse();
+			assertThat(jwtUtil.parseValidClaims(expired)).isNull();
+			assertThatThrownBy(() -> jwtUtil.extractClaims(expired)).isInstanceOf(ExpiredJwtException.class);
+		}
+		assertThat(jwtUtil.validateToken(token)).isTrue();
+	}
+
+	@Test
+	void cachedVerificationIsCheaperThanParsingEveryRequest() throws Exception {
+		String token = jwtUtil.generateToken("reader@example.com", "USER", 7L);
+
+		JwtParser sharedParser = Jwts.parserBuilder().setSigningKey(key).build();
+
+		long rebuiltPerSecond = 0;
+		long sharedPerSecond = 0;
+		long cachedPerSecond = 0;
+		for (int round = 0; round < 3; round++) {
+			rebuiltPerSecond = measure(t -> Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(t).getBody(),
+					token);
+			sharedPerSecond = measure(t -> sharedParser.parseClaimsJws(t).getBody(), token);
+			cachedPerSecond = measure(jwtUtil::extractClaims, token);
+		}
+		log.info("parser per request: {} verifications/s", rebuiltPerSecond);
+		log.info("shared parser:      {} verifications/s", sharedPerSecond);
+		log.info("digest cache:       {} verifications/s", cachedPerSecond);
+
+		assertThat(cachedPerSecond).isGreaterThan(sharedPerSecond);
+	}
+
+	private static long measure(Function<String, Claims> verify, String token) {
+		long start = System.nanoTime();
+		long sink = 0;
+		for (int i = 0; i < REQUESTS; i++) {
+			sink += verify.apply(token).getSubject().length();
+		}
+		long elapsedNanos = Math.max(1, System.nanoTime() - start);
+		assertThat(sink).isPositive();
+		return REQUESTS * 1_000_000_000L / elapsedNanos;
+	}
+}
@@ -0,0 +1,167 @@
+package com.online_library_service.security;
+
+import com.online_library_service.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+class LoginThrottleTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		executors.forEach(ThreadPoolTaskExecutor::shutdown);
+	}
+
+	@Test
+	void limitsAttemptsPerEmailAndPerAddress() {
+		LoginThrottle throttle = throttle(2, 10, 3, 5);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(throttle.execute("Reader@example.com", "10.0.0.1", () -> "ok")).isEqualTo("ok");
+		}
+		assertThatThrownBy(() -> throttle.execute("reader@example.com", "10.0.0.2", () -> "ok"))
+				.isInstanceOf(TooManyRequestsException.class)
+				.satisfies(ex -> assertThat(((TooManyRequestsException) ex).getRetryAfter()).isPositive());
+
+		for (int i = 0; i < 2; i++) {
+			throttle.execute("user" + i + "@example.com", "10.0.0.1", () -> "ok");
+		}
+		assertThatThrownBy(() -> throttle.execute("fresh@example.com", "10.0.0.1", () -> "ok"))
+				.isInstanceOf(TooManyRequestsException.class);
+		assertThat(throttle.execute("fresh@example.com", "10.0.0.3", () -> "ok")).isEqualTo("ok");
+
+		assertThat(meterRegistry.counter("auth.login.rejected", "reason", "email").count()).isEqualTo(1);
+		assertThat(meterRegistry.counter("auth.login.rejected", "reason", "ip").count()).isEqualTo(1);
+	}
+
+	@Test
+	void failedLoginIsRethrownUnwrapped() {
+		LoginThrottle throttle = throttle(2, 10, 100, 100);
+
+		assertThatThrownBy(() -> throttle.execute("reader@example.com", "10.0.0.1", () -> {
+			throw new BadCredentialsException("Bad credentials");
+		})).isInstanceOf(BadCredentialsException.class);
+	}
+
+	@Test
+	void rejectsAttemptsOnceThePoolAndQueueAreFull() throws Exception {
+		LoginThrottle throttle = throttle(1, 1, 100, 100);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> running = callers.submit(() -> throttle.execute("a@example.com", "10.0.0.1", () -> await(release)));
+			Future<?> queued = callers.submit(() -> throttle.execute("b@example.com", "10.0.0.2", () -> await(release)));
+			while (meterRegistry.get("auth.login.queue.depth").gauge().value() < 1) {
+				Thread.sleep(5);
+			}
+
+			assertThatThrownBy(() -> throttle.execute("c@example.com", "10.0.0.3", () -> "ok"))
+					.isInstanceOf(TooManyRequestsException.class);
+
+			release.countDown();
+			running.get(5, TimeUnit.SECONDS);
+			queued.get(5, TimeUnit.SECONDS);
+			assertThat(meterRegistry.counter("auth.login.rejected", "reason", "overloaded").count()).isEqualTo(1);
+		} finally {
+			callers.shutdownNow();
+		}
+	}
+
+	@Test
+	void bcryptBurstIsHeldToThePoolSize() throws Exception {
+		int threads = 2;
+		LoginThrottle throttle = throttle(threads, 1_000, 1_000, 1_000);
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(10);
+		String hash = encoder.encode("secret");
+		AtomicInteger concurrent = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+		AtomicLong maxQueue = new AtomicLong();
+		int attempts = 40;
+
+		ExecutorService callers = Executors.newFixedThreadPool(attempts);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < attempts; i++) {
+				String email = "user" + i + "@example.com";
+				results.add(callers.submit(() -> throttle.execute(email, "10.0.0.1", () -> {
+					peak.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+					maxQueue.accumulateAndGet((long) meterRegistry.get("auth.login.queue.depth").gauge().value(),
+							Math::max);
+					try {
+						return encoder.matches("secret", hash);
+					} finally {
+						concurrent.decrementAndGet();
+					}
+				})));
+			}
+			for (Future<Boolean> result : results) {
+				assertThat(result.get(60, TimeUnit.SECONDS)).isTrue();
+			}
+		} finally {
+			callers.shutdownNow();
+		}
+
+		var latency = meterRegistry.get("auth.login.duration").timer().takeSnapshot();
+		log.info("{} logins on {} threads: mean {} ms, max {} ms, max queue depth {}, mean queue wait {} ms", attempts,
+				threads, (long) latency.mean(TimeUnit.MILLISECONDS), (long) latency.max(TimeUnit.MILLISECONDS),
+				maxQueue.get(), (long) meterRegistry.get("auth.login.queue.wait").timer().mean(TimeUnit.MILLISECONDS));
+		assertThat(peak.get()).isLessThanOrEqualTo(threads);
+		assertThat(meterRegistry.get("auth.login.duration").timer().count()).isEqualTo(attempts);
+	}
+
+	@Test
+	void bucketRefillsOverTime() {
+		AtomicLong clock = new AtomicLong();
+		TokenBucketLimiter limiter = new TokenBucketLimiter(2, Duration.ofSeconds(10).toNanos(), 4, 16, clock::get);
+
+		assertThat(limiter.tryAcquire("key")).isZero();
+		assertThat(limiter.tryAcquire("key")).isZero();
+		assertThat(limiter.tryAcquire("key")).isEqualTo(Duration.ofSeconds(5).toNanos());
+
+		clock.addAndGet(Duration.ofSeconds(5).toNanos());
+		assertThat(limiter.tryAcquire("key")).isZero();
+		assertThat(limiter.tryAcquire("other")).isZero();
+	}
+
+	private LoginThrottle throttle(int threads, int queueCapacity, int emailCapacity, int ipCapacity) {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		executor.setQueueCapacity(queueCapacity);
+		executor.initialize();
+		executors.add(executor);
+		return new LoginThrottle(executor, meterRegistry, emailCapacity, Duration.ofMinutes(1), ipCapacity,
+				Duration.ofMinutes(1), Duration.ofSeconds(30));
+	}
+
+	private static String await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return "ok";
+	}
+}
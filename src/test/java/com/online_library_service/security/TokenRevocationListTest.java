@@ -0,0 +1,186 @@
+package com.online_library_service.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@Slf4j
+class TokenRevocationListTest {
+
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private TokenRevocationList revocationList;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+		revocationList = newList();
+	}
+
+	@Test
+	void loggedOutTokenIsRejectedAndReplicatedToOtherNodes() {
+		Claims token = token("reader@example.com", Instant.now());
+		when(redisTemplate.hasKey(TokenRevocationList.TOKEN_PREFIX + token.getId())).thenReturn(true);
+
+		revocationList.revokeToken(token);
+
+		assertThat(revocationList.isRevoked(token)).isTrue();
+		assertThat(revocationList.isRevoked(token("reader@example.com", Instant.now()))).isFalse();
+
+		ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+		verify(redisTemplate).convertAndSend(eq("auth:revocations"), message.capture());
+		TokenRevocationList otherNode = newList();
+		otherNode.onRevocationMessage(message.getValue());
+		assertThat(otherNode.isRevoked(token)).isTrue();
+	}
+
+	@Test
+	void passwordChangeRevokesEveryEarlierTokenOfThatUserOnly() {
+		Instant changedAt = Instant.now();
+		Claims before = token("reader@example.com", changedAt.minusSeconds(60));
+		Claims after = token("reader@example.com", changedAt.plusSeconds(1));
+		Claims otherUser = token("other@example.com", changedAt.minusSeconds(60));
+
+		revocationList.revokeAllBefore("reader@example.com", changedAt);
+
+		assertThat(revocationList.isRevoked(before)).isTrue();
+		assertThat(revocationList.isRevoked(after)).isFalse();
+		assertThat(revocationList.isRevoked(otherUser)).isFalse();
+	}
+
+	@Test
+	void tokenIssuedInTheSameSecondAsThePasswordChangeIsRevokedButTheNextLoginIsNot() {
+		Instant changedAt = Instant.now();
+		Instant sameSecond = Instant.ofEpochSecond(changedAt.getEpochSecond());
+
+		revocationList.revokeAllBefore("reader@example.com", changedAt);
+
+		assertThat(revocationList.isRevoked(token("reader@example.com", sameSecond))).isTrue();
+		Instant nextLogin = revocationList.issueTime("reader@example.com");
+		assertThat(nextLogin.getEpochSecond()).isGreaterThan(changedAt.getEpochSecond());
+		assertThat(revocationList.isRevoked(token("reader@example.com", nextLogin))).isFalse();
+	}
+
+	@Test
+	void bloomFilterFalsePositiveIsConfirmedAgainstRedis() {
+		for (int i = 0; i < 50_000; i++) {
+			revocationList.revokeToken(token("user" + i + "@example.com", Instant.now()));
+		}
+		when(redisTemplate.hasKey(anyString())).thenReturn(false);
+
+		int rejected = 0;
+		for (int i = 0; i < 50_000; i++) {
+			if (revocationList.isRevoked(token("reader@example.com", Instant.now()))) {
+				rejected++;
+			}
+		}
+		assertThat(rejected).isZero();
+	}
+
+	@Test
+	void clearedFalsePositiveIsRevokedOnceItsTokenIsLoggedOut() {
+		for (int i = 0; i < 50_000; i++) {
+			revocationList.revokeToken(token("user" + i + "@example.com", Instant.now()));
+		}
+		when(redisTemplate.hasKey(anyString())).thenReturn(false);
+		Claims falsePositive = null;
+		while (falsePositive == null) {
+			Claims candidate = token("reader@example.com", Instant.now());
+			revocationList.isRevoked(candidate);
+			if (meterRegistry.counter("auth.revocations.bloom.false.positives").count() > 0) {
+				falsePositive = candidate;
+			}
+		}
+		assertThat(revocationList.isRevoked(falsePositive)).isFalse();
+
+		when(redisTemplate.hasKey(TokenRevocationList.TOKEN_PREFIX + falsePositive.getId())).thenReturn(true);
+		revocationList.revokeToken(falsePositive);
+
+		assertThat(revocationList.isRevoked(falsePositive)).isTrue();
+	}
+
+	@Test
+	void bloomFilterStaysNearItsFalsePositiveRate() {
+		BloomFilter filter = new BloomFilter(100_000, 0.01);
+		for (int i = 0; i < 100_000; i++) {
+			filter.put(UUID.randomUUID().toString());
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain(UUID.randomUUID().toString())) {
+				falsePositives++;
+			}
+		}
+		log.info("bloom filter: {} bytes for 100000 ids, {} false positives in 100000 lookups", filter.sizeInBytes(),
+				falsePositives);
+		assertThat(falsePositives).isLessThan(2_000);
+	}
+
+	@Test
+	void checkingAValidTokenCostsAFewHundredNanoseconds() {
+		for (int i = 0; i < 100_000; i++) {
+			revocationList.revokeToken(token("user" + i + "@example.com", Instant.now()));
+		}
+		revocationList.revokeAllBefore("someone@example.com", Instant.now());
+		Claims[] valid = new Claims[1_000];
+		for (int i = 0; i < valid.length; i++) {
+			valid[i] = token("reader" + i + "@example.com", Instant.now());
+		}
+
+		long nanosPerCheck = 0;
+		for (int round = 0; round < 5; round++) {
+			int revoked = 0;
+			long start = System.nanoTime();
+			for (int i = 0; i < 1_000_000; i++) {
+				if (revocationList.isRevoked(valid[i % valid.length])) {
+					revoked++;
+				}
+			}
+			nanosPerCheck = (System.nanoTime() - start) / 1_000_000;
+			assertThat(revoked).isZero();
+		}
+		log.info("revocation check: {} ns per valid token with 100000 revoked", nanosPerCheck);
+		assertThat(nanosPerCheck).isLessThan(2_000);
+	}
+
+	@Test
+	void purgeDropsBucketsWhoseTokensHaveAllExpired() {
+		Claims expired = token("reader@example.com", Instant.now().minus(Duration.ofHours(3)));
+		revocationList.onRevocationMessage("jti|" + expired.getExpiration().getTime() / 1000 + "|" + expired.getId());
+		when(redisTemplate.hasKey(anyString())).thenReturn(true);
+		assertThat(revocationList.isRevoked(expired)).isTrue();
+
+		revocationList.purgeExpired();
+
+		assertThat(revocationList.isRevoked(expired)).isFalse();
+	}
+
+	private TokenRevocationList newList() {
+		return new TokenRevocationList(redisTemplate, meterRegistry, "auth:revocations",
+				Duration.ofMinutes(15), 100_000, 0.01, Duration.ofHours(1).toMillis());
+	}
+
+	private static Claims token(String email, Instant issuedAt) {
+		return Jwts.claims().setSubject(email).setId(UUID.randomUUID().toString()).setIssuedAt(Date.from(issuedAt))
+				.setExpiration(Date.from(issuedAt.plus(Duration.ofHours(1))));
+	}
+}